@@ -0,0 +1,88 @@
+package xyz.jeremynoesen.pseudo3d.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+import xyz.jeremynoesen.pseudo3d.scene.collision.AABBTree;
+import xyz.jeremynoesen.pseudo3d.scene.collision.SpatialHash;
+import xyz.jeremynoesen.pseudo3d.scene.collision.SweepAndPrune;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark of the garbage made by a tick once a scene has settled. run with the gc profiler, where
+ * gc.alloc.rate.norm should be close to 0 bytes per op for every layout
+ *
+ * @author Jeremy Noesen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AllocationBenchmark {
+
+    /**
+     * time step of a tick at 60 ticks per second
+     */
+    private static final float DELTA_TIME = 1 / 60f;
+
+    /**
+     * ticks run before measuring, enough for piles to come to rest
+     */
+    private static final int SETTLE_TICKS = 5000;
+
+    /**
+     * number of entities in the scene
+     */
+    @Param({"1000"})
+    private int count;
+
+    /**
+     * layout of the scene, falling entities or a resting pile with each broadphase
+     */
+    @Param({"fall", "fallUnbatched", "pileHash", "pileSweep", "pileTree", "pileNone"})
+    private String layout;
+
+    /**
+     * scene being ticked
+     */
+    private Scene scene;
+
+    /**
+     * create the scene and let it settle
+     */
+    @Setup
+    public void setup() {
+        scene = new Scene();
+        boolean pile = layout.startsWith("pile");
+        if (layout.equals("fallUnbatched")) scene.setBatched(false);
+        if (layout.equals("pileSweep")) scene.setBroadphase(new SweepAndPrune());
+        if (layout.equals("pileTree")) scene.setBroadphase(new AABBTree());
+        if (layout.equals("pileNone")) scene.setBroadphase(null);
+        if (layout.equals("pileHash")) scene.setBroadphase(new SpatialHash());
+
+        if (pile) {
+            scene.addEntity((Entity) new Entity().setKinematic(false).setDimensions(200, 1, 200)
+                    .setPosition(new Vector(0, -1, 0)));
+        }
+        for (int i = 0; i < count; i++) {
+            scene.addEntity((Entity) new Entity()
+                    .setPosition(new Vector((i % 30) * 2 - 30, (pile ? 1 : 1000) + (i / 30) * 1.01f, (i % 7) * 0.2f))
+                    .setGravity(new Vector(0, pile ? -9.8f : -1, 0)));
+        }
+        //falling entities stay awake, while piles fall asleep once they come to rest
+
+        for (int i = 0; i < SETTLE_TICKS; i++) scene.tick(DELTA_TIME);
+    }
+
+    /**
+     * tick the scene once
+     */
+    @Benchmark
+    public void tick() {
+        scene.tick(DELTA_TIME);
+    }
+}
@@ -0,0 +1,165 @@
+package xyz.jeremynoesen.pseudo3d.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Kernels;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.entity.PhysicsWorld;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark of the batched motion and overlap passes against ticking and checking one entity at a time. the scalar
+ * passes are what runs when the jit does not vectorize loops
+ *
+ * @author Jeremy Noesen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KernelBenchmark {
+
+    /**
+     * time step of a tick at 60 ticks per second
+     */
+    private static final float DELTA_TIME = 1 / 60f;
+
+    /**
+     * number of entities checked for overlaps per call
+     */
+    private static final int PROBES = 16;
+
+    /**
+     * number of entities in the world
+     */
+    @Param({"1000", "10000", "100000"})
+    private int count;
+
+    /**
+     * world holding every entity
+     */
+    private PhysicsWorld world;
+
+    /**
+     * entities in the world, all falling with nothing touching them
+     */
+    private ArrayList<Physics> entities;
+
+    /**
+     * batched passes using the vectorized and the scalar loops
+     */
+    private Kernels vectorized, scalar;
+
+    /**
+     * list for entities the batched pass could not tick, and for overlap results
+     */
+    private ArrayList<Physics> results;
+
+    /**
+     * create the world and entities
+     */
+    @Setup
+    public void setup() {
+        world = new PhysicsWorld(count);
+        entities = new ArrayList<>(count);
+        results = new ArrayList<>();
+        Random random = new Random(0);
+        int side = (int) Math.ceil(Math.cbrt(count));
+        for (int i = 0; i < count; i++) {
+            Physics physics = new Entity().setWorld(world);
+            physics.setPosition(new Vector((i % side) * 2, ((i / side) % side) * 2, (i / (side * side)) * 2))
+                    .setVelocity(new Vector(random.nextFloat() * 4 - 2, random.nextFloat() * 4 - 2,
+                            random.nextFloat() * 4 - 2));
+            entities.add(physics);
+        }
+        vectorized = new Kernels().setVectorized(true);
+        scalar = new Kernels().setVectorized(false);
+        vectorized.index(world, entities);
+        scalar.index(world, entities);
+    }
+
+    /**
+     * tick the motion of every entity on its own
+     */
+    @Benchmark
+    public void motionEntities() {
+        for (Physics physics : entities) physics.tickMotion(DELTA_TIME);
+    }
+
+    /**
+     * tick the motion of every entity with the scalar pass
+     */
+    @Benchmark
+    public void motionScalar() {
+        scalar.tickMotion(world, entities, DELTA_TIME, results);
+        results.clear();
+    }
+
+    /**
+     * tick the motion of every entity with the vectorized pass
+     */
+    @Benchmark
+    public void motionVectorized() {
+        vectorized.tickMotion(world, entities, DELTA_TIME, results);
+        results.clear();
+    }
+
+    /**
+     * check entities against every other entity one box at a time
+     *
+     * @param blackhole blackhole to consume the results
+     */
+    @Benchmark
+    public void overlapBoxes(Blackhole blackhole) {
+        int hits = 0;
+        for (int i = 0; i < PROBES; i++) {
+            Physics probe = entities.get(i * (count / PROBES));
+            for (Physics physics : entities) {
+                if (probe.overlaps((Box) physics)) hits++;
+            }
+        }
+        blackhole.consume(hits);
+    }
+
+    /**
+     * check entities against every other entity with the scalar pass
+     *
+     * @param blackhole blackhole to consume the results
+     */
+    @Benchmark
+    public void overlapScalar(Blackhole blackhole) {
+        overlap(scalar, blackhole);
+    }
+
+    /**
+     * check entities against every other entity with the vectorized pass
+     *
+     * @param blackhole blackhole to consume the results
+     */
+    @Benchmark
+    public void overlapVectorized(Blackhole blackhole) {
+        overlap(vectorized, blackhole);
+    }
+
+    /**
+     * check entities against every other entity with a batched pass
+     *
+     * @param kernels   batched passes to use
+     * @param blackhole blackhole to consume the results
+     */
+    private void overlap(Kernels kernels, Blackhole blackhole) {
+        for (int i = 0; i < PROBES; i++) {
+            kernels.overlapping(entities.get(i * (count / PROBES)), results);
+        }
+        blackhole.consume(results.size());
+        results.clear();
+    }
+}
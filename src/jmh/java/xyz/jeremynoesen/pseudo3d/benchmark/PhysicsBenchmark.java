@@ -0,0 +1,163 @@
+package xyz.jeremynoesen.pseudo3d.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark of ticking a whole scene with the default settings, for a few common layouts and sizes. reports ticks per
+ * second, and allocation rates when run with the gc profiler
+ *
+ * @author Jeremy Noesen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PhysicsBenchmark {
+
+    /**
+     * time step of a tick at 60 ticks per second
+     */
+    private static final float DELTA_TIME = 1 / 60f;
+
+    /**
+     * boxes in each column of the stack layout
+     */
+    private static final int STACK_HEIGHT = 10;
+
+    /**
+     * layers of boxes dropped onto the floor in the pile layout
+     */
+    private static final int PILE_LAYERS = 4;
+
+    /**
+     * number of entities in the scene, not counting the floor
+     */
+    @Param({"100", "1000", "10000", "50000"})
+    private int count;
+
+    /**
+     * layout of the entities. fall drops a grid of entities with nothing below them, pile drops layers of entities
+     * onto a floor and lets them come to rest, stack places columns of entities resting on a floor, and sparse spreads
+     * entities far apart drifting without gravity so they never touch
+     */
+    @Param({"fall", "pile", "stack", "sparse"})
+    private String layout;
+
+    /**
+     * scene being ticked
+     */
+    private Scene scene;
+
+    /**
+     * create the scene and let resting layouts settle
+     */
+    @Setup
+    public void setup() {
+        scene = new Scene();
+        Random random = new Random(0);
+        switch (layout) {
+            case "fall":
+                fall();
+                break;
+            case "pile":
+                pile(random);
+                break;
+            case "stack":
+                stack();
+                break;
+            case "sparse":
+                sparse(random);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown layout " + layout);
+        }
+        //build the layout
+
+        if (layout.equals("pile") || layout.equals("stack")) {
+            for (int i = 0; i < 600; i++) scene.tick(DELTA_TIME);
+        }
+        //measure resting layouts once they have come to rest
+    }
+
+    /**
+     * tick the scene once
+     */
+    @Benchmark
+    public void tick() {
+        scene.tick(DELTA_TIME);
+    }
+
+    /**
+     * fill the scene with a cube of entities high above the origin
+     */
+    private void fall() {
+        int side = (int) Math.ceil(Math.cbrt(count));
+        for (int i = 0; i < count; i++) {
+            scene.addEntity((Entity) new Entity().setPosition(new Vector((i % side) * 2,
+                    1000 + ((i / side) % side) * 2, (i / (side * side)) * 2)));
+        }
+    }
+
+    /**
+     * fill the scene with layers of entities just above a floor, offset a little so they tumble into a pile
+     *
+     * @param random random generator for the offsets
+     */
+    private void pile(Random random) {
+        int side = (int) Math.ceil(Math.sqrt(count / (double) PILE_LAYERS));
+        floor(side * 1.5f);
+        for (int i = 0; i < count; i++) {
+            int layer = i / (side * side);
+            scene.addEntity((Entity) new Entity().setPosition(new Vector(
+                    (i % side) * 1.2f + random.nextFloat() * 0.4f - side * 0.6f,
+                    1 + layer * 1.5f,
+                    ((i / side) % side) * 1.2f + random.nextFloat() * 0.4f - side * 0.6f)));
+        }
+    }
+
+    /**
+     * fill the scene with columns of entities stacked exactly on top of each other on a floor
+     */
+    private void stack() {
+        int columns = (int) Math.ceil(Math.sqrt(Math.ceil(count / (double) STACK_HEIGHT)));
+        floor(columns * 2);
+        for (int i = 0; i < count; i++) {
+            int column = i / STACK_HEIGHT;
+            scene.addEntity((Entity) new Entity().setPosition(new Vector((column % columns) * 2 - columns,
+                    0.5f + (i % STACK_HEIGHT), (column / columns) * 2 - columns)));
+        }
+    }
+
+    /**
+     * fill the scene with entities spread far apart, drifting slowly without gravity or drag
+     *
+     * @param random random generator for the velocities
+     */
+    private void sparse(Random random) {
+        int side = (int) Math.ceil(Math.cbrt(count));
+        for (int i = 0; i < count; i++) {
+            scene.addEntity((Entity) new Entity().setGravity(new Vector()).setDrag(new Vector())
+                    .setVelocity(new Vector(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f,
+                            random.nextFloat() - 0.5f))
+                    .setPosition(new Vector((i % side) * 20, ((i / side) % side) * 20, (i / (side * side)) * 20)));
+        }
+    }
+
+    /**
+     * add a static floor with its top at 0
+     *
+     * @param size width and depth of the floor
+     */
+    private void floor(float size) {
+        scene.addEntity((Entity) new Entity().setKinematic(false).setDimensions(size + 2, 1, size + 2)
+                .setPosition(new Vector(0, -0.5f, 0)));
+    }
+}
@@ -0,0 +1,206 @@
+package xyz.jeremynoesen.pseudo3d.scene.render;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Sprite;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark of rendering a scene to an offscreen canvas on a headless javafx platform. each benchmark runs the steps
+ * of a render up to a phase, so the cost of a phase is the difference to the benchmark before it: project minus
+ * nothing, cull minus project, render minus cull and sort for recording draw calls, and snapshot minus render for
+ * rasterizing them. this lives next to the renderer to reach its package private steps
+ *
+ * @author Jeremy Noesen
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw"})
+public class RendererBenchmark {
+
+    /**
+     * width of the canvas in pixels
+     */
+    private static final int WIDTH = 1280;
+
+    /**
+     * height of the canvas in pixels
+     */
+    private static final int HEIGHT = 720;
+
+    /**
+     * time elapsed in a frame at 60 frames per second
+     */
+    private static final float DELTA_TIME = 1 / 60f;
+
+    /**
+     * number of entities with a sprite in the scene
+     */
+    @Param({"100", "1000", "10000"})
+    private int sprites;
+
+    /**
+     * whether the camera and sprites are rotated
+     */
+    @Param({"false", "true"})
+    private boolean rotation;
+
+    /**
+     * field of view of the camera in degrees, 0 for no perspective
+     */
+    @Param({"0", "90"})
+    private float fieldOfView;
+
+    /**
+     * fraction of the entities placed off the canvas
+     */
+    @Param({"0", "0.5", "0.9"})
+    private float culled;
+
+    /**
+     * scene being rendered
+     */
+    private Scene scene;
+
+    /**
+     * renderer of the scene
+     */
+    private Renderer renderer;
+
+    /**
+     * offscreen canvas drawn to
+     */
+    private Canvas canvas;
+
+    /**
+     * graphics context of the canvas
+     */
+    private GraphicsContext graphicsContext;
+
+    /**
+     * image the canvas is rasterized to
+     */
+    private WritableImage image;
+
+    /**
+     * start the platform and create the scene
+     *
+     * @throws InterruptedException if interrupted while starting the platform
+     */
+    @Setup
+    public void setup() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException e) {
+            started.countDown();
+        }
+        started.await();
+        Platform.setImplicitExit(false);
+        //start the platform once per fork, images and snapshots need it running
+
+        scene = new Scene();
+        scene.getCamera().setFieldOfView(fieldOfView).setRotation(rotation ? 30 : 0);
+        Random random = new Random(0);
+        float gridX = scene.getGridScale().getX();
+        float inner = Math.min(WIDTH, HEIGHT) * 0.4f / gridX;
+        float outer = (float) Math.hypot(WIDTH, HEIGHT) * 2 / gridX;
+        for (int i = 0; i < sprites; i++) {
+            boolean hidden = i < sprites * culled;
+            double angle = random.nextDouble() * Math.PI * 2;
+            float distance = hidden ? outer * (1 + random.nextFloat()) : inner * random.nextFloat();
+            Sprite sprite = new Sprite(1, 1, Color.hsb(random.nextDouble() * 360, 1, 1));
+            if (rotation) sprite.setRotation(random.nextFloat() * 360);
+            float x = (float) Math.cos(angle) * distance, y = (float) Math.sin(angle) * distance;
+            scene.addEntity((Entity) new Entity().setSprite(sprite)
+                    .setPosition(new Vector(x, y, -1 - random.nextFloat() * 4)));
+        }
+        //visible entities stay within the canvas at any camera rotation, and hidden ones stay outside of it even when
+        //perspective pulls them towards the center
+
+        renderer = new Renderer(scene);
+        canvas = new Canvas(WIDTH, HEIGHT);
+        graphicsContext = canvas.getGraphicsContext2D();
+        image = new WritableImage(WIDTH, HEIGHT);
+    }
+
+    /**
+     * sort the entities by z position, which are already mostly sorted from the last frame like in a running scene
+     */
+    @Benchmark
+    public void sort() {
+        renderer.sort();
+    }
+
+    /**
+     * project every entity onto the canvas
+     *
+     * @param blackhole blackhole to consume the results
+     */
+    @Benchmark
+    public void project(Blackhole blackhole) {
+        renderer.init(graphicsContext, DELTA_TIME, 1);
+        int projected = 0;
+        for (Entity entity : scene.getEntities()) {
+            if (renderer.project(entity)) projected++;
+        }
+        blackhole.consume(projected);
+    }
+
+    /**
+     * project every entity and check if it is on the canvas
+     *
+     * @param blackhole blackhole to consume the results
+     */
+    @Benchmark
+    public void cull(Blackhole blackhole) {
+        renderer.init(graphicsContext, DELTA_TIME, 1);
+        int visible = 0;
+        for (Entity entity : scene.getEntities()) {
+            if (renderer.project(entity) && renderer.cull(entity)) visible++;
+        }
+        blackhole.consume(visible);
+    }
+
+    /**
+     * render a full frame, recording draw calls on the canvas
+     */
+    @Benchmark
+    public void render() {
+        graphicsContext.clearRect(0, 0, WIDTH, HEIGHT);
+        //clearing the whole canvas lets it drop the draw calls of the last frame
+
+        renderer.render(graphicsContext, DELTA_TIME);
+    }
+
+    /**
+     * render a full frame and rasterize it into an image on the platform thread, which includes handing off to the
+     * platform thread and waiting for it
+     *
+     * @throws InterruptedException if interrupted while waiting for the snapshot
+     */
+    @Benchmark
+    public void snapshot() throws InterruptedException {
+        render();
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            canvas.snapshot(null, image);
+            done.countDown();
+        });
+        done.await();
+    }
+}
@@ -0,0 +1,152 @@
+package xyz.jeremynoesen.pseudo3d;
+
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * batch runner for many short simulations of the same scene. each run ticks its own copy of a template scene with
+ * its own seed, and the runs are split between the threads of a pool
+ *
+ * @author Jeremy Noesen
+ */
+public class BatchRunner {
+
+    /**
+     * scene every run starts as a copy of
+     */
+    private final Scene template;
+
+    /**
+     * pool to run the simulations on
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * number of ticks each run simulates
+     */
+    private int ticks;
+
+    /**
+     * time each tick simulates in seconds
+     */
+    private float deltaTime;
+
+    /**
+     * create a new batch runner for a template scene, running 600 ticks of 1/60 of a second on the common pool
+     *
+     * @param template scene every run starts as a copy of, which must not be ticked while runs are copying it
+     */
+    public BatchRunner(Scene template) {
+        this.template = template;
+        pool = ForkJoinPool.commonPool();
+        ticks = 600;
+        deltaTime = 1 / 60f;
+    }
+
+    /**
+     * run simulations of copies of the template, each set up with its own random generator before ticking. the seed of
+     * each run only depends on the batch seed and the index of the run, so a batch gives the same results every time
+     * as long as the setup and scene are deterministic
+     *
+     * @param runs   number of simulations to run
+     * @param seed   seed the seeds of the runs are made from
+     * @param setup  setup for each copy, such as placing entities and adding injections, may be null
+     * @param result result to collect from each copy once it finished ticking
+     * @param <R>    type of result
+     * @return results of the runs in order
+     */
+    public <R> List<R> run(int runs, long seed, BiConsumer<Scene, Random> setup, Function<Scene, R> result) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<ForkJoinTask<R>> tasks = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            long runSeed = seeds.nextLong();
+            tasks.add(pool.submit(() -> {
+                Scene scene = new Scene(template);
+                if (setup != null) setup.accept(scene, new Random(runSeed));
+                new Headless(scene, 0, deltaTime).run(ticks);
+                return result.apply(scene);
+            }));
+        }
+        //seeds are made in order before any run starts, so they do not depend on which thread runs first
+
+        List<R> results = new ArrayList<>(runs);
+        for (ForkJoinTask<R> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * get the scene every run starts as a copy of
+     *
+     * @return template scene
+     */
+    public Scene getTemplate() {
+        return template;
+    }
+
+    /**
+     * get the pool the simulations run on
+     *
+     * @return pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * set the pool the simulations run on
+     *
+     * @param pool pool to run on
+     */
+    public BatchRunner setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * get the number of ticks each run simulates
+     *
+     * @return ticks per run
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * set the number of ticks each run simulates
+     *
+     * @param ticks ticks per run
+     */
+    public BatchRunner setTicks(int ticks) {
+        this.ticks = Math.max(0, ticks);
+        return this;
+    }
+
+    /**
+     * get the time each tick simulates
+     *
+     * @return time per tick in seconds
+     */
+    public float getDeltaTime() {
+        return deltaTime;
+    }
+
+    /**
+     * set the time each tick simulates
+     *
+     * @param deltaTime time per tick in seconds
+     */
+    public BatchRunner setDeltaTime(float deltaTime) {
+        this.deltaTime = deltaTime;
+        return this;
+    }
+}
@@ -0,0 +1,218 @@
+package xyz.jeremynoesen.pseudo3d;
+
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * headless runner for a scene, ticking it on a plain thread without a javafx window or toolkit. ticks either as fast
+ * as possible or at a set tick speed, always by the same amount of time, so runs can be repeated
+ *
+ * @author Jeremy Noesen
+ */
+public class Headless implements Runnable {
+
+    /**
+     * scene being ticked by this runner
+     */
+    private final Scene scene;
+
+    /**
+     * time each tick simulates in seconds
+     */
+    private volatile float deltaTime;
+
+    /**
+     * tick speed to run at (hertz), 0 to run as fast as possible
+     */
+    private volatile int tickSpeed;
+
+    /**
+     * thread ticking the scene, null if not started
+     */
+    private Thread thread;
+
+    /**
+     * whether the runner should keep ticking
+     */
+    private volatile boolean running;
+
+    /**
+     * number of ticks run since the runner was created
+     */
+    private volatile long ticks;
+
+    /**
+     * ticks per second measured over the last second of running
+     */
+    private volatile float ticksPerSecond;
+
+    /**
+     * create a new headless runner ticking a scene as fast as possible, simulating 60 ticks per second of scene time
+     *
+     * @param scene scene to tick
+     */
+    public Headless(Scene scene) {
+        this(scene, 0, 1 / 60f);
+    }
+
+    /**
+     * create a new headless runner ticking a scene
+     *
+     * @param scene     scene to tick
+     * @param tickSpeed tick speed to run at (hertz), 0 to run as fast as possible
+     * @param deltaTime time each tick simulates in seconds
+     */
+    public Headless(Scene scene, int tickSpeed, float deltaTime) {
+        this.scene = scene;
+        this.tickSpeed = Math.max(0, tickSpeed);
+        this.deltaTime = deltaTime;
+    }
+
+    /**
+     * start ticking the scene on a new thread, does nothing if already running
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "Pseudo3D Headless");
+        thread.start();
+    }
+
+    /**
+     * stop ticking the scene, waiting for the current tick to finish
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = this.thread;
+            this.thread = null;
+        }
+        if (thread != null && thread != Thread.currentThread()) thread.join();
+    }
+
+    /**
+     * tick the scene until stopped, pacing ticks to the tick speed if one is set
+     */
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        long next = start;
+        long counted = 0;
+        while (running) {
+            scene.tick(deltaTime);
+            ticks++;
+            counted++;
+            //tick the scene by the same time every tick
+
+            long now = System.nanoTime();
+            if (now - start >= 1000000000L) {
+                ticksPerSecond = counted * 1000000000.0f / (now - start);
+                start = now;
+                counted = 0;
+            }
+            //measure ticks per second once every second
+
+            if (tickSpeed > 0) {
+                next += 1000000000L / tickSpeed;
+                if (now - next > 1000000000L / tickSpeed) next = now;
+                else if (next > now) LockSupport.parkNanos(next - now);
+            }
+            //wait for the next tick, giving up on ticks that fell behind so they do not pile up
+        }
+    }
+
+    /**
+     * tick the scene a set number of times on the calling thread as fast as possible, without pacing
+     *
+     * @param count number of ticks to run
+     * @return ticks per second of the run
+     */
+    public float run(int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            scene.tick(deltaTime);
+            ticks++;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > 0) ticksPerSecond = count * 1000000000.0f / elapsed;
+        return ticksPerSecond;
+    }
+
+    /**
+     * get the scene being ticked
+     *
+     * @return scene
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * check if the runner is ticking the scene on its thread
+     *
+     * @return true if running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * get the number of ticks run since the runner was created
+     *
+     * @return number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * get the ticks per second measured over the last second of running, or over the last counted run
+     *
+     * @return ticks per second
+     */
+    public float getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    /**
+     * get the time each tick simulates
+     *
+     * @return time per tick in seconds
+     */
+    public float getDeltaTime() {
+        return deltaTime;
+    }
+
+    /**
+     * set the time each tick simulates
+     *
+     * @param deltaTime time per tick in seconds
+     */
+    public Headless setDeltaTime(float deltaTime) {
+        this.deltaTime = deltaTime;
+        return this;
+    }
+
+    /**
+     * get the tick speed the runner runs at
+     *
+     * @return tick speed (hertz), 0 if running as fast as possible
+     */
+    public int getTickSpeed() {
+        return tickSpeed;
+    }
+
+    /**
+     * set the tick speed the runner runs at
+     *
+     * @param tickSpeed tick speed (hertz), 0 to run as fast as possible
+     */
+    public Headless setTickSpeed(int tickSpeed) {
+        this.tickSpeed = Math.max(0, tickSpeed);
+        return this;
+    }
+}
@@ -1,15 +1,35 @@
 package xyz.jeremynoesen.pseudo3d.scene;
 
 import javafx.scene.canvas.GraphicsContext;
+import xyz.jeremynoesen.pseudo3d.scene.collision.AABBTree;
+import xyz.jeremynoesen.pseudo3d.scene.collision.Broadphase;
+import xyz.jeremynoesen.pseudo3d.scene.collision.Islands;
+import xyz.jeremynoesen.pseudo3d.scene.collision.SpatialHash;
+import xyz.jeremynoesen.pseudo3d.scene.entity.ContactListener;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Contacts;
 import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Kernels;
+import xyz.jeremynoesen.pseudo3d.scene.entity.LevelOfDetail;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
 import xyz.jeremynoesen.pseudo3d.scene.entity.Sprite;
+import xyz.jeremynoesen.pseudo3d.scene.entity.PhysicsWorld;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Stacks;
 import xyz.jeremynoesen.pseudo3d.scene.render.Camera;
 import xyz.jeremynoesen.pseudo3d.scene.render.Renderer;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
 import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * scene to place entities, a camera, and code injections to modify them
@@ -18,6 +38,15 @@ import java.util.Objects;
  */
 public class Scene {
     
+    /**
+     * ways to tick entity motion. serial ticks every entity in order on the calling thread, pushing other entities
+     * directly. islands groups touching entities and ticks separate groups on a fork join pool, with the same result as
+     * serial. parallel ticks the motion of every entity at once on a fork join pool, each reading the state other
+     * entities had at the start of the tick and only changing itself, so motion does not depend on entity order.
+     * collisions are still resolved serially in entity order in every mode, so final positions can still depend on it
+     */
+    public enum TickMode {SERIAL, ISLANDS, PARALLEL}
+    
     /**
      * all entities in the scene
      */
@@ -48,6 +77,11 @@ public class Scene {
      */
     private final HashSet<Runnable> renderRunnables;
     
+    /**
+     * listeners for changes in the entities touching any entity in the scene
+     */
+    private final HashSet<ContactListener> contactListeners;
+    
     /**
      * scene renderer
      */
@@ -68,18 +102,199 @@ public class Scene {
      */
     private float speed;
     
+    /**
+     * broadphase used to find collision candidates, null to check every entity against every other entity
+     */
+    private Broadphase broadphase;
+    
+    /**
+     * broadphase holding only the non-kinematic entities, only updated when they change
+     */
+    private final Broadphase staticBroadphase;
+    
+    /**
+     * all entities in list order, filled when partitioning so each step loops over them by index without an iterator
+     */
+    private final ArrayList<Entity> ordered;
+    
+    /**
+     * position of every entity in the entity order, by its slot in the scene's world
+     */
+    private int[] orders;
+    
+    /**
+     * kinematic entities, which check their own collisions
+     */
+    private final ArrayList<Entity> dynamicEntities;
+    
+    /**
+     * non-kinematic entities, which are only checked by kinematic entities
+     */
+    private final ArrayList<Entity> staticEntities;
+    
+    /**
+     * sum of the bounds versions of the non-kinematic entities, used to see if any of them changed
+     */
+    private long staticVersion;
+    
+    /**
+     * whether the non-kinematic entities changed since the static broadphase was last updated
+     */
+    private boolean staticsChanged;
+    
+    /**
+     * whether collisions moved entities since the dynamic broadphase was last updated
+     */
+    private boolean broadphaseStale;
+    
+    /**
+     * number of sleeping entities at the end of the last tick
+     */
+    private int sleepingCount;
+    
+    /**
+     * how entity motion is ticked
+     */
+    private TickMode tickMode;
+    
+    /**
+     * pool to tick islands on
+     */
+    private ForkJoinPool pool;
+    
+    /**
+     * islands of touching kinematic entities, used when ticking in island mode
+     */
+    private final Islands islands;
+    
+    /**
+     * masses stacked behind each entity, found once per tick before motion
+     */
+    private final Stacks stacks;
+    
+    /**
+     * physics state of every entity in the scene
+     */
+    private final PhysicsWorld world;
+    
+    /**
+     * contacts between entities, kept between ticks so pairs that did not move skip the full overlap check
+     */
+    private final Contacts contacts;
+    
+    /**
+     * fixed time step for physics in seconds, 0 to step by the time elapsed since the last tick
+     */
+    private float fixedStep;
+    
+    /**
+     * most fixed steps a tick can take to catch up before the rest of the elapsed time is dropped
+     */
+    private int maxSteps;
+    
+    /**
+     * elapsed time not yet simulated by a fixed step, in seconds
+     */
+    private float accumulator;
+    
+    /**
+     * whether fast entities are swept along their path to stop them passing through thin entities
+     */
+    private boolean continuous;
+    
+    /**
+     * whether entities with nothing touching them are ticked together by batched passes over the world
+     */
+    private boolean batched;
+    
+    /**
+     * batched passes over the world
+     */
+    private final Kernels kernels;
+    
+    /**
+     * reusable list of kinematic entities the batched motion pass could not tick
+     */
+    private final ArrayList<Entity> unbatched;
+    
+    /**
+     * level of detail deciding which kinematic entities tick each step, null to tick all of them every step
+     */
+    private LevelOfDetail levelOfDetail;
+    
+    /**
+     * reusable list of kinematic entities the level of detail ticks this step
+     */
+    private final ArrayList<Entity> due;
+    
+    /**
+     * reusable list of collision candidates for the entity being ticked
+     */
+    private final ArrayList<Physics> candidates;
+    
+    /**
+     * reusable list of broadphase results for scene queries
+     */
+    private final ArrayList<Physics> queryCandidates;
+    
+    /**
+     * reusable box covering the path of the entity being swept
+     */
+    private final Box sweptBox;
+    
+    /**
+     * reusable box around the point of a point query
+     */
+    private final Box pointBox;
+    
     /**
      * create a new scene
      */
     public Scene() {
+        this(new PhysicsWorld());
+    }
+    
+    /**
+     * create a new scene storing the physics state of its entities in a world, such as a direct world to keep the
+     * state of many entities off the heap
+     *
+     * @param world world to store physics state in
+     */
+    public Scene(PhysicsWorld world) {
         entities = new LinkedList<>();
         camera = new Camera();
         background = null;
         tickRunnables = new HashSet<>();
         renderRunnables = new HashSet<>();
+        contactListeners = new HashSet<>();
         gridScale = new Vector(32, 32, 32);
         renderer = new Renderer(this);
         speed = 1;
+        broadphase = new SpatialHash();
+        candidates = new ArrayList<>();
+        queryCandidates = new ArrayList<>();
+        sweptBox = new Box();
+        orders = new int[16];
+        pointBox = new Box();
+        staticBroadphase = new AABBTree(0);
+        ordered = new ArrayList<>();
+        dynamicEntities = new ArrayList<>();
+        staticEntities = new ArrayList<>();
+        staticsChanged = true;
+        tickMode = TickMode.SERIAL;
+        pool = ForkJoinPool.commonPool();
+        islands = new Islands();
+        stacks = new Stacks();
+        this.world = world;
+        contacts = new Contacts();
+        fixedStep = 0;
+        maxSteps = 5;
+        continuous = true;
+        batched = true;
+        kernels = new Kernels();
+        unbatched = new ArrayList<>();
+        levelOfDetail = null;
+        due = new ArrayList<>();
     }
     
     /**
@@ -96,55 +311,346 @@ public class Scene {
         this.background = background;
         tickRunnables = new HashSet<>();
         renderRunnables = new HashSet<>();
+        contactListeners = new HashSet<>();
         this.gridScale = gridScale;
         this.renderer = new Renderer(this);
         speed = 1;
+        broadphase = new SpatialHash();
+        candidates = new ArrayList<>();
+        queryCandidates = new ArrayList<>();
+        sweptBox = new Box();
+        orders = new int[16];
+        pointBox = new Box();
+        staticBroadphase = new AABBTree(0);
+        ordered = new ArrayList<>();
+        dynamicEntities = new ArrayList<>();
+        staticEntities = new ArrayList<>();
+        staticsChanged = true;
+        tickMode = TickMode.SERIAL;
+        pool = ForkJoinPool.commonPool();
+        islands = new Islands();
+        stacks = new Stacks();
+        world = new PhysicsWorld();
+        contacts = new Contacts();
+        fixedStep = 0;
+        maxSteps = 5;
+        continuous = true;
+        batched = true;
+        kernels = new Kernels();
+        unbatched = new ArrayList<>();
+        levelOfDetail = null;
+        due = new ArrayList<>();
     }
     
     /**
-     * copy constructor for scene
+     * copy constructor for scene. the copy has its own entities, world, and lists of injections, so copies can tick on
+     * separate threads. injections and listeners themselves are shared, so ones that change the scene they were made
+     * for should be added to each copy instead
      *
      * @param scene scene to copy
      */
     public Scene(Scene scene) {
         entities = new LinkedList<>();
-        for (Entity entity : scene.entities) {
-            entities.add(new Entity(entity));
-        }
         camera = new Camera(scene.camera);
-        background = scene.background;
-        tickRunnables = scene.tickRunnables;
-        renderRunnables = scene.renderRunnables;
+        background = scene.background == null ? null : new Sprite(scene.background);
+        tickRunnables = new HashSet<>(scene.tickRunnables);
+        renderRunnables = new HashSet<>(scene.renderRunnables);
+        contactListeners = new HashSet<>(scene.contactListeners);
         gridScale = scene.gridScale;
         renderer = new Renderer(this);
         lastRender = 0;
         lastTick = 0;
         speed = scene.speed;
+        broadphase = scene.broadphase == null ? null : scene.broadphase.copy();
+        candidates = new ArrayList<>();
+        queryCandidates = new ArrayList<>();
+        sweptBox = new Box();
+        orders = new int[16];
+        pointBox = new Box();
+        staticBroadphase = new AABBTree(0);
+        ordered = new ArrayList<>();
+        dynamicEntities = new ArrayList<>();
+        staticEntities = new ArrayList<>();
+        staticsChanged = true;
+        tickMode = scene.tickMode;
+        pool = scene.pool;
+        islands = new Islands();
+        stacks = new Stacks();
+        world = new PhysicsWorld();
+        contacts = new Contacts();
+        fixedStep = scene.fixedStep;
+        maxSteps = scene.maxSteps;
+        continuous = scene.continuous;
+        batched = scene.batched;
+        kernels = new Kernels().setVectorized(scene.kernels.isVectorized());
+        unbatched = new ArrayList<>();
+        levelOfDetail = scene.levelOfDetail == null ? null : new LevelOfDetail(scene.levelOfDetail);
+        due = new ArrayList<>();
+        IdentityHashMap<Entity, Entity> copies = new IdentityHashMap<>();
+        for (Entity entity : scene.entities) {
+            Entity copy = new Entity(entity);
+            copies.put(entity, copy);
+            addEntity(copy);
+        }
+        for (Entity entity : entities) {
+            entity.remapCollisions(copies);
+        }
+        //move the copies into this scene and its world, and point their contacts at each other instead of the originals
     }
     
     /**
      * tick all entities in the scene, updating all motion first, and then all collisions take place. also run any tick
-     * injections
+     * injections. with a fixed step, the elapsed time is added to an accumulator and simulated in whole steps
      */
     public void tick() {
         float deltaTime = 0;
         if (lastTick > 0) deltaTime = (System.nanoTime() - lastTick) / 1000000000.0f;
         //delta time for ticking
         
-        tickRunnables.forEach(Runnable::run);
+        tick(deltaTime);
+        lastTick = System.nanoTime();
+    }
+    
+    /**
+     * tick all entities in the scene by a set amount of time instead of the time since the last tick, for running the
+     * scene without a window or clock, such as on a server or in tests
+     *
+     * @param deltaTime time to tick by in seconds, before the scene speed is applied
+     */
+    public void tick(float deltaTime) {
+        if (fixedStep > 0) {
+            accumulator += deltaTime * speed;
+            int steps = 0;
+            while (accumulator >= fixedStep && steps < maxSteps) {
+                step(fixedStep);
+                accumulator -= fixedStep;
+                steps++;
+            }
+            if (accumulator >= fixedStep) accumulator %= fixedStep;
+            //drop time that could not be caught up on so slow ticks do not pile up more steps every tick
+        } else {
+            step(deltaTime * speed);
+        }
+    }
+    
+    /**
+     * run the tick injections and simulate one step of motion, collisions, and sleeping
+     *
+     * @param deltaTime time to simulate, already scaled by the scene speed
+     */
+    private void step(float deltaTime) {
+        world.storePositions();
+        //keep the positions from before the step for sweeping and render interpolation
+        
+        if (!tickRunnables.isEmpty()) tickRunnables.forEach(Runnable::run);
         //run all tick loop injections
         
-        for (Entity entity : entities) {
-            entity.tickMotion(deltaTime * speed);
+        partition();
+        //split entities into kinematic and static entities
+        
+        List<Entity> ticking = dynamicEntities;
+        if (levelOfDetail != null) {
+            levelOfDetail.schedule(dynamicEntities, camera, deltaTime, due);
+            ticking = due;
+        }
+        //only tick the entities due this step, the rest keep the time they skipped for their next tick
+        
+        stacks.update(ticking);
+        //find stacked masses for the whole scene at once
+        
+        if (tickMode == TickMode.PARALLEL) world.bufferState();
+        List<Entity> moving = ticking;
+        if (batched) {
+            kernels.tickMotion(world, ticking, deltaTime, unbatched);
+            moving = unbatched;
+        }
+        //tick entities with nothing touching them in one pass, they can not change or be changed by other entities
+        
+        if (tickMode == TickMode.ISLANDS) {
+            islands.build(moving);
+            islands.tickMotion(deltaTime, pool);
+        } else if (tickMode == TickMode.PARALLEL) {
+            forEachDynamic(moving, entity -> entity.tickBufferedMotion(deltaTime));
+        } else {
+            for (int i = 0; i < moving.size(); i++) {
+                moving.get(i).tickMotion(deltaTime);
+            }
+        }
+        unbatched.clear();
+        stacks.clear();
+        if (levelOfDetail != null) levelOfDetail.reset(due);
+        //tick all entities motion, statics never move on their own
+        
+        if (broadphase != null && staticsChanged) {
+            staticBroadphase.update(staticEntities);
+            staticsChanged = false;
         }
-        //tick all entities motion
+        //update the static broadphase only if statics changed, statics never move on their own
         
+        if (broadphase != null) broadphase.update(dynamicEntities);
+        //update the dynamic broadphase with the new entity bounds
+        
+        if (continuous) sweep();
+        //move fast entities back to the first thing they passed through
+        
+        for (int i = 0; i < staticEntities.size(); i++) {
+            Entity entity = staticEntities.get(i);
+            if (entity.isColliding() || entity.isOverlapping()) entity.clearCollisions();
+        }
+        //reset the collision data kinematic entities gave to statics last tick
+        
+        if (broadphase == null && batched) kernels.index(world, ordered);
+        //index entities by slot so overlaps can be found in one pass over the world
+        
+        for (int i = 0; i < ticking.size(); i++) {
+            Entity entity = ticking.get(i);
+            if (entity.isSleeping()) {
+                entity.restoreCollisions();
+            } else if (broadphase == null && !batched) {
+                entity.tickCollisions(ordered, contacts);
+            } else if (broadphase == null) {
+                if (!entity.isUpdatable()) continue;
+                candidates.clear();
+                kernels.overlapping(entity, candidates);
+                entity.tickCollisions(candidates, contacts);
+            } else if (entity.isUpdatable()) {
+                candidates.clear();
+                broadphase.candidates(entity, candidates);
+                int count = candidates.size();
+                staticBroadphase.candidates(entity, candidates);
+                if (count > 0) merge(count);
+                //check statics and kinematic entities in entity order, the same as without a broadphase
+                int version = entity.getVersion();
+                entity.tickCollisions(candidates, contacts);
+                if (entity.getVersion() != version) broadphase.refresh(entity);
+                //let the broadphase see entities pushed by collisions, so entities after them find them as candidates
+            }
+        }
+        candidates.clear();
+        contacts.prune();
+        broadphaseStale = broadphase != null;
+        //tick collisions of kinematic entities against their candidates, statics never check their own and get the
+        //contacts of sleeping entities back
+        
+        if (ticking != dynamicEntities) {
+            for (int i = 0, j = 0; i < dynamicEntities.size(); i++) {
+                Entity entity = dynamicEntities.get(i);
+                if (j < due.size() && due.get(j) == entity) j++;
+                else entity.restoreCollisions();
+            }
+        }
+        //entities the level of detail skipped keep their contacts too, so statics get those back the same way
+        
+        for (int i = 0; i < ticking.size(); i++) {
+            ticking.get(i).tickSleep();
+        }
+        due.clear();
+        sleepingCount = 0;
+        for (int i = 0; i < dynamicEntities.size(); i++) {
+            if (dynamicEntities.get(i).isSleeping()) sleepingCount++;
+        }
+        //put resting entities to sleep and count sleeping entities
+        
+        for (int i = 0; i < ordered.size(); i++) {
+            ordered.get(i).tickContacts(contactListeners);
+        }
+        //send contact events once all contacts for the step are known
+    }
+    
+    /**
+     * run an action on kinematic entities, split between the threads of the pool
+     *
+     * @param entities kinematic entities to run the action on
+     * @param action   action to run
+     */
+    private void forEachDynamic(List<Entity> entities, Consumer<Entity> action) {
+        if (pool.getParallelism() < 2 || entities.size() <= Batch.SIZE) entities.forEach(action);
+        else pool.invoke(new Batch(entities, action, 0, entities.size()));
+    }
+    
+    /**
+     * sweep every entity that moved more than half its size this step against the entities around its path. the
+     * dynamic broadphase already holds the bounds from after motion, and is refreshed for every entity a sweep moves
+     */
+    private void sweep() {
+        for (int i = 0; i < dynamicEntities.size(); i++) {
+            Entity entity = dynamicEntities.get(i);
+            if (!entity.isFast()) continue;
+            if (broadphase == null) {
+                entity.sweep(ordered);
+            } else {
+                Box swept = entity.getSweptBox(sweptBox);
+                candidates.clear();
+                broadphase.query(swept, candidates);
+                int count = candidates.size();
+                staticBroadphase.query(swept, candidates);
+                if (count > 0) merge(count);
+                int version = entity.getVersion();
+                entity.sweep(candidates);
+                if (entity.getVersion() != version) broadphase.refresh(entity);
+            }
+        }
+        candidates.clear();
+    }
+    
+    /**
+     * move the candidates from an index on into entity order with the ones before it, both parts already being sorted
+     *
+     * @param start index of the first candidate to move
+     */
+    private void merge(int start) {
+        for (int i = start; i < candidates.size(); i++) {
+            Physics physics = candidates.get(i);
+            int order = orders[physics.getSlot()];
+            int j = i;
+            while (j > 0 && orders[candidates.get(j - 1).getSlot()] > order) {
+                candidates.set(j, candidates.get(j - 1));
+                j--;
+            }
+            candidates.set(j, physics);
+        }
+    }
+    
+    /**
+     * split the entities into kinematic and static lists, keeping track of whether the statics changed
+     */
+    private void partition() {
+        ordered.clear();
+        dynamicEntities.clear();
+        int staticCount = 0;
+        long version = 0;
         for (Entity entity : entities) {
-            entity.tickCollisions();
+            if (entity.getWorld() != world) entity.setWorld(world);
+            int slot = entity.getSlot();
+            if (slot >= orders.length) orders = Arrays.copyOf(orders, Math.max(slot + 1, orders.length * 2));
+            orders[slot] = ordered.size();
+            ordered.add(entity);
+            //move the state of entities added straight to the list into the scene's world
+            if (entity.isKinematic()) {
+                dynamicEntities.add(entity);
+                continue;
+            }
+            if (staticCount == staticEntities.size()) {
+                staticEntities.add(entity);
+                staticsChanged = true;
+            } else if (staticEntities.get(staticCount) != entity) {
+                staticEntities.set(staticCount, entity);
+                staticsChanged = true;
+            }
+            staticCount++;
+            version += entity.getVersion();
         }
-        //tick all entities collisions
+        //fill the lists, noting any static that was added, removed, or reordered
         
-        lastTick = System.nanoTime();
+        while (staticEntities.size() > staticCount) {
+            staticEntities.remove(staticEntities.size() - 1);
+            staticsChanged = true;
+        }
+        if (version != staticVersion) {
+            staticVersion = version;
+            staticsChanged = true;
+        }
+        //versions only increase, so a different sum means a static moved or resized
     }
     
     /**
@@ -160,7 +666,7 @@ public class Scene {
         renderRunnables.forEach(Runnable::run);
         //run all render loop injections
         
-        renderer.render(graphicsContext, deltaTime * speed);
+        renderer.render(graphicsContext, deltaTime * speed, getAlpha());
         //render frame
         
         lastRender = System.nanoTime();
@@ -172,6 +678,7 @@ public class Scene {
     public void clearDeltaTime() {
         lastRender = 0;
         lastTick = 0;
+        accumulator = 0;
     }
     
     /**
@@ -203,10 +710,148 @@ public class Scene {
         if (entities.contains(entity)) {
             entities.remove(entity);
             entity.setScene(null);
+            for (Physics physics : entity.getCollidingEntities()) physics.setSleeping(false);
+            //wake anything that was resting on or against the removed entity
         }
         return this;
     }
     
+    /**
+     * find all entities overlapping a box, using the broadphases as they were at the end of the last tick
+     *
+     * @param box     box to check
+     * @param results collection to add the overlapping entities to
+     */
+    public void query(Box box, Collection<? super Entity> results) {
+        if (broadphase == null) {
+            for (Entity entity : entities) {
+                if (box.overlaps(entity)) results.add(entity);
+            }
+            return;
+        }
+        refreshBroadphase();
+        queryCandidates.clear();
+        broadphase.query(box, queryCandidates);
+        staticBroadphase.query(box, queryCandidates);
+        for (int i = 0; i < queryCandidates.size(); i++) {
+            Physics physics = queryCandidates.get(i);
+            if (box.overlaps(physics)) results.add((Entity) physics);
+        }
+        queryCandidates.clear();
+    }
+    
+    /**
+     * find all entities containing a point, using the broadphases as they were at the end of the last tick
+     *
+     * @param point   point to check
+     * @param results collection to add the entities containing the point to
+     */
+    public void queryPoint(Vector point, Collection<? super Entity> results) {
+        if (broadphase == null) {
+            for (Entity entity : entities) {
+                if (entity.contains(point)) results.add(entity);
+            }
+            return;
+        }
+        refreshBroadphase();
+        pointBox.setPosition(point.getX(), point.getY(), point.getZ());
+        queryCandidates.clear();
+        broadphase.query(pointBox, queryCandidates);
+        staticBroadphase.query(pointBox, queryCandidates);
+        for (int i = 0; i < queryCandidates.size(); i++) {
+            Physics physics = queryCandidates.get(i);
+            if (physics.contains(point)) results.add((Entity) physics);
+        }
+        queryCandidates.clear();
+    }
+    
+    /**
+     * find all entities hit by a ray, using the broadphases as they were at the end of the last tick. entities are
+     * added in entity order, not in order of distance
+     *
+     * @param origin      start of the ray
+     * @param direction   direction of the ray
+     * @param maxDistance furthest distance along the ray to check (meters)
+     * @param results     collection to add the hit entities to
+     */
+    public void raycast(Vector origin, Vector direction, float maxDistance, Collection<? super Entity> results) {
+        float length = direction.getMagnitude();
+        if (length == 0) return;
+        float x = origin.getX(), y = origin.getY(), z = origin.getZ();
+        float dx = direction.getX() / length, dy = direction.getY() / length, dz = direction.getZ() / length;
+        //normalize the direction without making a new vector
+        
+        if (broadphase == null) {
+            for (Entity entity : entities) {
+                if (entity.raycast(x, y, z, dx, dy, dz, maxDistance) >= 0) results.add(entity);
+            }
+            return;
+        }
+        refreshBroadphase();
+        queryCandidates.clear();
+        broadphase.raycast(x, y, z, dx, dy, dz, maxDistance, queryCandidates);
+        staticBroadphase.raycast(x, y, z, dx, dy, dz, maxDistance, queryCandidates);
+        for (int i = 0; i < queryCandidates.size(); i++) {
+            Physics physics = queryCandidates.get(i);
+            if (physics.raycast(x, y, z, dx, dy, dz, maxDistance) >= 0) results.add((Entity) physics);
+        }
+        queryCandidates.clear();
+    }
+    
+    /**
+     * find the closest entity hit by a ray, such as for line of sight checks
+     *
+     * @param origin      start of the ray
+     * @param direction   direction of the ray
+     * @param maxDistance furthest distance along the ray to check (meters)
+     * @return closest hit entity, or null if the ray hits nothing
+     */
+    public Entity raycast(Vector origin, Vector direction, float maxDistance) {
+        float length = direction.getMagnitude();
+        if (length == 0) return null;
+        float x = origin.getX(), y = origin.getY(), z = origin.getZ();
+        float dx = direction.getX() / length, dy = direction.getY() / length, dz = direction.getZ() / length;
+        //normalize the direction without making a new vector
+        
+        Entity closest = null;
+        float distance = maxDistance;
+        if (broadphase == null) {
+            for (Entity entity : entities) {
+                float hit = entity.raycast(x, y, z, dx, dy, dz, distance);
+                if (hit >= 0 && (closest == null || hit < distance)) {
+                    closest = entity;
+                    distance = hit;
+                }
+            }
+            return closest;
+        }
+        refreshBroadphase();
+        queryCandidates.clear();
+        broadphase.raycast(x, y, z, dx, dy, dz, maxDistance, queryCandidates);
+        staticBroadphase.raycast(x, y, z, dx, dy, dz, maxDistance, queryCandidates);
+        for (int i = 0; i < queryCandidates.size(); i++) {
+            Physics physics = queryCandidates.get(i);
+            float hit = physics.raycast(x, y, z, dx, dy, dz, distance);
+            if (hit >= 0 && (closest == null || hit < distance)) {
+                closest = (Entity) physics;
+                distance = hit;
+            }
+        }
+        queryCandidates.clear();
+        //keep shrinking the ray to the closest hit so far
+        return closest;
+    }
+    
+    /**
+     * update the dynamic broadphase if collisions moved entities since its last update. the scene updates it before
+     * resolving collisions, so without this queries would miss entities pushed out of the bounds it last saw
+     */
+    private void refreshBroadphase() {
+        if (!broadphaseStale) return;
+        broadphase.update(dynamicEntities);
+        broadphaseStale = false;
+    }
+    
     /**
      * get the camera for this scene
      *
@@ -274,6 +919,36 @@ public class Scene {
         return tickRunnables;
     }
     
+    /**
+     * add a listener for changes in the entities touching any entity in the scene. every touching pair sends events to
+     * it once for each entity in the pair
+     *
+     * @param listener contact listener
+     */
+    public Scene addContactListener(ContactListener listener) {
+        contactListeners.add(listener);
+        return this;
+    }
+    
+    /**
+     * remove a listener for changes in the entities touching any entity in the scene
+     *
+     * @param listener contact listener
+     */
+    public Scene removeContactListener(ContactListener listener) {
+        contactListeners.remove(listener);
+        return this;
+    }
+    
+    /**
+     * get the listeners for changes in the entities touching any entity in the scene
+     *
+     * @return set of contact listeners
+     */
+    public HashSet<ContactListener> getContactListeners() {
+        return contactListeners;
+    }
+    
     /**
      * add a runnable to the render loop for this scene
      *
@@ -322,6 +997,207 @@ public class Scene {
         return this;
     }
     
+    /**
+     * get the broadphase used to find collision candidates
+     *
+     * @return broadphase, or null if every entity is checked against every other entity
+     */
+    public Broadphase getBroadphase() {
+        return broadphase;
+    }
+    
+    /**
+     * set the broadphase used to find collision candidates
+     *
+     * @param broadphase new broadphase, null to check every entity against every other entity
+     */
+    public Scene setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+        staticsChanged = true;
+        broadphaseStale = broadphase != null;
+        return this;
+    }
+    
+    /**
+     * get how entity motion is ticked
+     *
+     * @return tick mode
+     */
+    public TickMode getTickMode() {
+        return tickMode;
+    }
+    
+    /**
+     * set how entity motion is ticked
+     *
+     * @param tickMode new tick mode
+     */
+    public Scene setTickMode(TickMode tickMode) {
+        this.tickMode = tickMode;
+        return this;
+    }
+    
+    /**
+     * get the world storing the physics state of the entities in the scene
+     *
+     * @return physics world
+     */
+    public PhysicsWorld getWorld() {
+        return world;
+    }
+    
+    /**
+     * get the pool islands are ticked on
+     *
+     * @return fork join pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * set the pool islands are ticked on
+     *
+     * @param pool fork join pool, the common pool by default
+     */
+    public Scene setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+    
+    /**
+     * check if fast entities are swept along their path
+     *
+     * @return true if continuous collision detection is on
+     */
+    public boolean isContinuous() {
+        return continuous;
+    }
+    
+    /**
+     * set whether entities that move more than half their size in a step are swept along their path and stopped at
+     * the first entity they would pass through. only fast entities pay for the sweep, so the tick rate can stay low
+     *
+     * @param continuous true to sweep fast entities
+     */
+    public Scene setContinuous(boolean continuous) {
+        this.continuous = continuous;
+        return this;
+    }
+    
+    /**
+     * check if entities with nothing touching them are ticked together by batched passes over the world
+     *
+     * @return true if batched
+     */
+    public boolean isBatched() {
+        return batched;
+    }
+    
+    /**
+     * set whether entities with nothing touching them are ticked together by batched passes over the world, and
+     * whether collision candidates are found by one pass over the world when there is no broadphase. batched entities
+     * move the same as they would on their own, but before the rest, as if they were first in the entity list
+     *
+     * @param batched true to batch entities
+     */
+    public Scene setBatched(boolean batched) {
+        this.batched = batched;
+        return this;
+    }
+    
+    /**
+     * get the batched passes of the scene, used to pick between the vectorized and scalar passes
+     *
+     * @return batched passes
+     */
+    public Kernels getKernels() {
+        return kernels;
+    }
+    
+    /**
+     * get the level of detail deciding which kinematic entities tick each step
+     *
+     * @return level of detail, null if every entity ticks every step
+     */
+    public LevelOfDetail getLevelOfDetail() {
+        return levelOfDetail;
+    }
+    
+    /**
+     * set the level of detail deciding which kinematic entities tick each step by their distance from the camera.
+     * entities away from the camera tick less often with larger steps, and can also collide less often
+     *
+     * @param levelOfDetail level of detail, null to tick every entity every step
+     */
+    public Scene setLevelOfDetail(LevelOfDetail levelOfDetail) {
+        this.levelOfDetail = levelOfDetail;
+        return this;
+    }
+    
+    /**
+     * get the number of entities that were sleeping at the end of the last tick
+     *
+     * @return number of sleeping entities
+     */
+    public int getSleepingCount() {
+        return sleepingCount;
+    }
+    
+    /**
+     * get the fixed time step for physics
+     *
+     * @return fixed step in seconds, 0 if stepping by elapsed time
+     */
+    public float getFixedStep() {
+        return fixedStep;
+    }
+    
+    /**
+     * set a fixed time step for physics. ticks simulate whole steps of the elapsed time, and rendering interpolates
+     * entity positions between the last two steps
+     *
+     * @param fixedStep fixed step in seconds, 0 to step by the time elapsed since the last tick
+     */
+    public Scene setFixedStep(float fixedStep) {
+        this.fixedStep = Math.max(0, fixedStep);
+        accumulator = 0;
+        return this;
+    }
+    
+    /**
+     * get the most fixed steps a tick can take to catch up
+     *
+     * @return max steps per tick
+     */
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+    
+    /**
+     * set the most fixed steps a tick can take to catch up. elapsed time past this is dropped, so a slow tick does not
+     * make the next tick even slower
+     *
+     * @param maxSteps max steps per tick
+     */
+    public Scene setMaxSteps(int maxSteps) {
+        this.maxSteps = Math.max(1, maxSteps);
+        return this;
+    }
+    
+    /**
+     * get how far the current time is between the last two fixed steps, used to interpolate entity positions. includes
+     * the time since the last tick, so rendering faster than ticking still moves smoothly
+     *
+     * @return fraction of a step from 0 to 1, always 1 without a fixed step
+     */
+    public float getAlpha() {
+        if (fixedStep <= 0) return 1;
+        float time = accumulator;
+        if (lastTick > 0) time += (System.nanoTime() - lastTick) / 1000000000.0f * speed;
+        return Math.min(time / fixedStep, 1);
+    }
+    
     /**
      * get the speed of the scene
      *
@@ -361,4 +1237,63 @@ public class Scene {
                 Objects.equals(renderer, scene.renderer) &&
                 Float.compare(speed, scene.speed) == 0;
     }
+    
+    /**
+     * task running an action on a range of entities, split in half until it is small enough
+     */
+    private static class Batch extends RecursiveAction {
+        
+        /**
+         * version of the serialized form, batches are never serialized but forkjoin tasks are serializable
+         */
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * most entities a task runs on before it is split
+         */
+        private static final int SIZE = 256;
+        
+        /**
+         * entities to run the action on
+         */
+        private final List<Entity> entities;
+        
+        /**
+         * action to run
+         */
+        private final Consumer<Entity> action;
+        
+        /**
+         * first entity and entity after the last entity
+         */
+        private final int from, to;
+        
+        /**
+         * create a new task for a range of entities
+         *
+         * @param entities entities to run the action on
+         * @param action   action to run
+         * @param from     first entity
+         * @param to       entity after the last entity
+         */
+        private Batch(List<Entity> entities, Consumer<Entity> action, int from, int to) {
+            this.entities = entities;
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+        
+        /**
+         * run the action on the entities, or split them into two tasks
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= SIZE) {
+                for (int i = from; i < to; i++) action.accept(entities.get(i));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Batch(entities, action, from, mid), new Batch(entities, action, mid, to));
+        }
+    }
 }
@@ -0,0 +1,590 @@
+package xyz.jeremynoesen.pseudo3d.scene.collision;
+
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * dynamic bounding volume hierarchy broadphase. every entity is a leaf holding a fat box slightly bigger than the
+ * entity, so the tree only changes when an entity moves out of its fat box. works well with entities of very
+ * different sizes
+ *
+ * @author Jeremy Noesen
+ */
+public class AABBTree implements Broadphase {
+
+    /**
+     * marks a missing node
+     */
+    private static final int NULL = -1;
+
+    /**
+     * leaf node of each tracked entity
+     */
+    private final IdentityHashMap<Physics, Integer> leaves;
+
+    /**
+     * distance leaves extend past their entity on every side, in grid units
+     */
+    private float margin;
+
+    /**
+     * bounds of every node as min x, y, z followed by max x, y, z
+     */
+    private float[] bounds;
+
+    /**
+     * parent of every node, or the next free node for free nodes
+     */
+    private int[] parent;
+
+    /**
+     * children of every node, NULL for leaves
+     */
+    private int[] child1, child2;
+
+    /**
+     * height of every node, leaves are 0
+     */
+    private int[] height;
+
+    /**
+     * entity of every leaf
+     */
+    private Physics[] entity;
+
+    /**
+     * index of every leaf's entity in the list given to the last update
+     */
+    private int[] order;
+
+    /**
+     * last update every leaf was seen in
+     */
+    private int[] seen;
+
+    /**
+     * root node
+     */
+    private int root;
+
+    /**
+     * first free node
+     */
+    private int free;
+
+    /**
+     * current update number
+     */
+    private int stamp;
+
+    /**
+     * stack used while walking the tree
+     */
+    private int[] stack;
+
+    /**
+     * leaves found by the current query, packed with their order
+     */
+    private long[] found;
+
+    /**
+     * create a new tree with a fat margin of a tenth of a grid unit
+     */
+    public AABBTree() {
+        this(0.1f);
+    }
+
+    /**
+     * create a new tree with a set fat margin
+     *
+     * @param margin distance leaves extend past their entity, in grid units
+     */
+    public AABBTree(float margin) {
+        this.margin = margin;
+        leaves = new IdentityHashMap<>();
+        root = NULL;
+        free = NULL;
+        bounds = new float[0];
+        parent = new int[0];
+        child1 = new int[0];
+        child2 = new int[0];
+        height = new int[0];
+        entity = new Physics[0];
+        order = new int[0];
+        seen = new int[0];
+        stack = new int[64];
+        found = new long[16];
+        grow(16);
+    }
+
+    /**
+     * add new entities, move leaves whose entity left its fat box, and remove entities no longer in the list
+     *
+     * @param entities all entities to track
+     */
+    @Override
+    public void update(List<? extends Physics> entities) {
+        stamp++;
+        int index = 0;
+
+        for (Physics physics : entities) {
+            Integer boxed = leaves.get(physics);
+            int leaf;
+            if (boxed == null) {
+                leaf = allocate();
+                entity[leaf] = physics;
+                fatten(leaf, physics);
+                insertLeaf(leaf);
+                leaves.put(physics, leaf);
+            } else {
+                leaf = boxed;
+                if (!fatContains(leaf, physics)) {
+                    removeLeaf(leaf);
+                    fatten(leaf, physics);
+                    insertLeaf(leaf);
+                }
+            }
+            //insert new entities, and only reinsert entities that moved out of their fat box
+
+            seen[leaf] = stamp;
+            order[leaf] = index++;
+        }
+
+        if (leaves.size() > index) {
+            leaves.values().removeIf(leaf -> {
+                if (seen[leaf] == stamp) return false;
+                removeLeaf(leaf);
+                release(leaf);
+                return true;
+            });
+        }
+        //remove entities that are no longer in the list
+    }
+
+    /**
+     * reinsert the leaf of an entity if it moved out of its fat box, keeping its place in the entity order
+     *
+     * @param physics entity that moved
+     */
+    @Override
+    public void refresh(Physics physics) {
+        Integer boxed = leaves.get(physics);
+        if (boxed == null) return;
+        int leaf = boxed;
+        if (fatContains(leaf, physics)) return;
+        removeLeaf(leaf);
+        fatten(leaf, physics);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * find all tracked entities whose fat box overlaps a box. results are added in the order the entities were given
+     * to the last update
+     *
+     * @param box     box to check
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void query(Box box, Collection<? super Physics> results) {
+        query(box, null, results);
+    }
+
+    /**
+     * find all tracked entities whose fat box overlaps an entity and whose layers and masks let them collide with it.
+     * the entity does not have to be tracked by the tree
+     *
+     * @param physics entity to find candidates for
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void candidates(Physics physics, Collection<? super Physics> results) {
+        query(physics, physics, results);
+    }
+
+    /**
+     * find all tracked entities whose fat box overlaps a box, skipping leaves filtered out by layers
+     *
+     * @param box     box to check
+     * @param filter  entity whose layers and mask the results have to match, or null for no filter
+     * @param results collection to add the found entities to
+     */
+    private void query(Box box, Physics filter, Collection<? super Physics> results) {
+        if (root == NULL) return;
+        float minX = box.getMinX(), minY = box.getMinY(), minZ = box.getMinZ();
+        float maxX = box.getMaxX(), maxY = box.getMaxY(), maxZ = box.getMaxZ();
+
+        int count = 0, size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int node = stack[--size];
+            int b = node * 6;
+            if (bounds[b] > maxX || bounds[b + 3] < minX || bounds[b + 1] > maxY || bounds[b + 4] < minY ||
+                    bounds[b + 2] > maxZ || bounds[b + 5] < minZ) continue;
+            //skip nodes that do not overlap the box
+
+            if (child1[node] == NULL) {
+                if (filter != null && !filter.interacts(entity[node])) continue;
+                if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                found[count++] = ((long) order[node] << 32) | node;
+            } else {
+                if (size + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[size++] = child1[node];
+                stack[size++] = child2[node];
+            }
+        }
+        //walk down every branch overlapping the box
+
+        Arrays.sort(found, 0, count);
+        for (int i = 0; i < count; i++) results.add(entity[(int) found[i]]);
+        //add results in entity order
+    }
+
+    /**
+     * find all tracked entities whose fat box is hit by a ray, only walking down branches the ray passes through.
+     * results are added in the order the entities were given to the last update
+     *
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check, in lengths of the direction
+     * @param results     collection to add the found entities to
+     */
+    @Override
+    public void raycast(float x, float y, float z, float dx, float dy, float dz, float maxDistance,
+                        Collection<? super Physics> results) {
+        if (root == NULL) return;
+
+        int count = 0, size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int node = stack[--size];
+            int b = node * 6;
+            if (Box.raycast(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                    x, y, z, dx, dy, dz, maxDistance) < 0) continue;
+            //skip nodes the ray misses
+
+            if (child1[node] == NULL) {
+                if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                found[count++] = ((long) order[node] << 32) | node;
+            } else {
+                if (size + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[size++] = child1[node];
+                stack[size++] = child2[node];
+            }
+        }
+        //walk down every branch the ray passes through
+
+        Arrays.sort(found, 0, count);
+        for (int i = 0; i < count; i++) results.add(entity[(int) found[i]]);
+        //add results in entity order
+    }
+
+    /**
+     * create a new empty tree with the same fat margin
+     *
+     * @return new tree
+     */
+    @Override
+    public Broadphase copy() {
+        return new AABBTree(margin);
+    }
+
+    /**
+     * get the fat margin of the leaves
+     *
+     * @return distance leaves extend past their entity, in grid units
+     */
+    public float getMargin() {
+        return margin;
+    }
+
+    /**
+     * set the fat margin of the leaves, used the next time a leaf is inserted
+     *
+     * @param margin distance leaves extend past their entity, in grid units
+     */
+    public AABBTree setMargin(float margin) {
+        this.margin = margin;
+        return this;
+    }
+
+    /**
+     * get the height of the tree
+     *
+     * @return height of the tree, 0 if it is empty or only has one leaf
+     */
+    public int getHeight() {
+        return root == NULL ? 0 : height[root];
+    }
+
+    /**
+     * set the bounds of a leaf to the fat box of an entity
+     *
+     * @param leaf    leaf node
+     * @param physics entity of the leaf
+     */
+    private void fatten(int leaf, Physics physics) {
+        int b = leaf * 6;
+        bounds[b] = physics.getMinX() - margin;
+        bounds[b + 1] = physics.getMinY() - margin;
+        bounds[b + 2] = physics.getMinZ() - margin;
+        bounds[b + 3] = physics.getMaxX() + margin;
+        bounds[b + 4] = physics.getMaxY() + margin;
+        bounds[b + 5] = physics.getMaxZ() + margin;
+    }
+
+    /**
+     * check if an entity is still inside the fat box of its leaf
+     *
+     * @param leaf    leaf node
+     * @param physics entity of the leaf
+     * @return true if the entity is inside the fat box
+     */
+    private boolean fatContains(int leaf, Physics physics) {
+        int b = leaf * 6;
+        return bounds[b] <= physics.getMinX() && bounds[b + 1] <= physics.getMinY() &&
+                bounds[b + 2] <= physics.getMinZ() && bounds[b + 3] >= physics.getMaxX() &&
+                bounds[b + 4] >= physics.getMaxY() && bounds[b + 5] >= physics.getMaxZ();
+    }
+
+    /**
+     * insert a leaf next to the sibling that grows the tree's surface area the least
+     *
+     * @param leaf leaf node
+     */
+    private void insertLeaf(int leaf) {
+        if (root == NULL) {
+            root = leaf;
+            parent[leaf] = NULL;
+            return;
+        }
+
+        int index = root;
+        while (child1[index] != NULL) {
+            float area = area(index, NULL);
+            float combinedArea = area(index, leaf);
+            float cost = 2 * combinedArea;
+            float inheritance = 2 * (combinedArea - area);
+            //cost of pairing the leaf with this node, and the minimum cost pushed down to its children
+
+            int c1 = child1[index], c2 = child2[index];
+            float cost1 = area(c1, leaf) + inheritance;
+            if (child1[c1] != NULL) cost1 -= area(c1, NULL);
+            float cost2 = area(c2, leaf) + inheritance;
+            if (child1[c2] != NULL) cost2 -= area(c2, NULL);
+            //cost of descending into each child
+
+            if (cost < cost1 && cost < cost2) break;
+            index = cost1 < cost2 ? c1 : c2;
+        }
+        //find the best sibling for the leaf
+
+        int sibling = index;
+        int oldParent = parent[sibling];
+        int newParent = allocate();
+        parent[newParent] = oldParent;
+        entity[newParent] = null;
+        union(newParent, sibling, leaf);
+        height[newParent] = height[sibling] + 1;
+
+        if (oldParent != NULL) {
+            if (child1[oldParent] == sibling) child1[oldParent] = newParent;
+            else child2[oldParent] = newParent;
+        } else {
+            root = newParent;
+        }
+        child1[newParent] = sibling;
+        child2[newParent] = leaf;
+        parent[sibling] = newParent;
+        parent[leaf] = newParent;
+        //put a new parent in place of the sibling, holding the sibling and the leaf
+
+        refit(parent[leaf]);
+    }
+
+    /**
+     * remove a leaf from the tree, its parent node is freed and its sibling takes the parent's place
+     *
+     * @param leaf leaf node
+     */
+    private void removeLeaf(int leaf) {
+        if (leaf == root) {
+            root = NULL;
+            return;
+        }
+
+        int oldParent = parent[leaf];
+        int grandParent = parent[oldParent];
+        int sibling = child1[oldParent] == leaf ? child2[oldParent] : child1[oldParent];
+
+        if (grandParent != NULL) {
+            if (child1[grandParent] == oldParent) child1[grandParent] = sibling;
+            else child2[grandParent] = sibling;
+            parent[sibling] = grandParent;
+            release(oldParent);
+            refit(grandParent);
+        } else {
+            root = sibling;
+            parent[sibling] = NULL;
+            release(oldParent);
+        }
+    }
+
+    /**
+     * walk up from a node, balancing and fixing the bounds and height of every node on the way
+     *
+     * @param index first node to fix
+     */
+    private void refit(int index) {
+        while (index != NULL) {
+            index = balance(index);
+            int c1 = child1[index], c2 = child2[index];
+            height[index] = 1 + Math.max(height[c1], height[c2]);
+            union(index, c1, c2);
+            index = parent[index];
+        }
+    }
+
+    /**
+     * rotate a node's taller child up if its children differ in height by more than one
+     *
+     * @param a node to balance
+     * @return node now in the place of the given node
+     */
+    private int balance(int a) {
+        if (child1[a] == NULL || height[a] < 2) return a;
+
+        int b = child1[a], c = child2[a];
+        int difference = height[c] - height[b];
+
+        if (difference > 1) {
+            rotate(a, c, b, false);
+            return c;
+        }
+        if (difference < -1) {
+            rotate(a, b, c, true);
+            return b;
+        }
+        return a;
+    }
+
+    /**
+     * rotate a child up into the place of its parent
+     *
+     * @param a     parent node
+     * @param up    child being rotated up
+     * @param other other child of the parent
+     * @param first true if the child rotated up is the parent's first child
+     */
+    private void rotate(int a, int up, int other, boolean first) {
+        int f = child1[up], g = child2[up];
+
+        child1[up] = a;
+        parent[up] = parent[a];
+        parent[a] = up;
+        if (parent[up] != NULL) {
+            if (child1[parent[up]] == a) child1[parent[up]] = up;
+            else child2[parent[up]] = up;
+        } else {
+            root = up;
+        }
+        //swap the parent and child
+
+        int keep = height[f] > height[g] ? f : g;
+        int give = keep == f ? g : f;
+        child2[up] = keep;
+        if (first) child1[a] = give;
+        else child2[a] = give;
+        parent[give] = a;
+        //the taller grandchild stays with the child, the shorter one moves to the parent
+
+        union(a, other, give);
+        union(up, a, keep);
+        height[a] = 1 + Math.max(height[other], height[give]);
+        height[up] = 1 + Math.max(height[a], height[keep]);
+    }
+
+    /**
+     * set the bounds of a node to surround two other nodes
+     *
+     * @param node node to set
+     * @param a    first node
+     * @param b    second node
+     */
+    private void union(int node, int a, int b) {
+        int n = node * 6, i = a * 6, j = b * 6;
+        for (int k = 0; k < 3; k++) bounds[n + k] = Math.min(bounds[i + k], bounds[j + k]);
+        for (int k = 3; k < 6; k++) bounds[n + k] = Math.max(bounds[i + k], bounds[j + k]);
+    }
+
+    /**
+     * get half the surface area of a node, or of the box surrounding two nodes
+     *
+     * @param a first node
+     * @param b second node, or NULL
+     * @return half surface area
+     */
+    private float area(int a, int b) {
+        int i = a * 6, j = (b == NULL ? a : b) * 6;
+        float x = Math.max(bounds[i + 3], bounds[j + 3]) - Math.min(bounds[i], bounds[j]);
+        float y = Math.max(bounds[i + 4], bounds[j + 4]) - Math.min(bounds[i + 1], bounds[j + 1]);
+        float z = Math.max(bounds[i + 5], bounds[j + 5]) - Math.min(bounds[i + 2], bounds[j + 2]);
+        return x * y + y * z + z * x;
+    }
+
+    /**
+     * take a node from the free list, growing the node arrays if needed
+     *
+     * @return free node
+     */
+    private int allocate() {
+        if (free == NULL) grow(parent.length * 2);
+        int node = free;
+        free = parent[node];
+        parent[node] = NULL;
+        child1[node] = NULL;
+        child2[node] = NULL;
+        height[node] = 0;
+        return node;
+    }
+
+    /**
+     * put a node back on the free list
+     *
+     * @param node node to free
+     */
+    private void release(int node) {
+        entity[node] = null;
+        parent[node] = free;
+        free = node;
+    }
+
+    /**
+     * grow the node arrays and add the new nodes to the free list
+     *
+     * @param capacity new number of nodes
+     */
+    private void grow(int capacity) {
+        int old = parent.length;
+        bounds = Arrays.copyOf(bounds, capacity * 6);
+        parent = Arrays.copyOf(parent, capacity);
+        child1 = Arrays.copyOf(child1, capacity);
+        child2 = Arrays.copyOf(child2, capacity);
+        height = Arrays.copyOf(height, capacity);
+        entity = Arrays.copyOf(entity, capacity);
+        order = Arrays.copyOf(order, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+        for (int node = capacity - 1; node >= old; node--) {
+            parent[node] = free;
+            free = node;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package xyz.jeremynoesen.pseudo3d.scene.collision;
+
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * acceleration structure used by a scene to narrow down which entities need to be checked for collisions
+ *
+ * @author Jeremy Noesen
+ */
+public interface Broadphase {
+
+    /**
+     * update the broadphase to match the current bounds of the entities, called once per scene tick
+     *
+     * @param entities all entities to track
+     */
+    void update(List<? extends Physics> entities);
+
+    /**
+     * bring a tracked entity up to date after it moved since the last update, called by a scene when a sweep or a
+     * collision pushes an entity, so candidates found later in the same tick include it at its new bounds. does
+     * nothing by default, which only suits broadphases that read the live bounds of entities
+     *
+     * @param physics entity that moved
+     */
+    default void refresh(Physics physics) {
+    }
+
+    /**
+     * find all tracked entities that may overlap a box. results can contain entities that do not actually overlap
+     *
+     * @param box     box to check
+     * @param results collection to add the found entities to
+     */
+    void query(Box box, Collection<? super Physics> results);
+
+    /**
+     * find all tracked entities that may collide with a tracked entity. the entity itself can be included
+     *
+     * @param physics entity to find candidates for
+     * @param results collection to add the found entities to
+     */
+    default void candidates(Physics physics, Collection<? super Physics> results) {
+        query(physics, results);
+    }
+
+    /**
+     * find all tracked entities that may be hit by a ray. results can contain entities the ray does not actually hit
+     *
+     * @param origin      start of the ray
+     * @param direction   direction of the ray, distances are in lengths of this vector
+     * @param maxDistance furthest distance along the ray to check
+     * @param results     collection to add the found entities to
+     */
+    default void raycast(Vector origin, Vector direction, float maxDistance, Collection<? super Physics> results) {
+        raycast(origin.getX(), origin.getY(), origin.getZ(), direction.getX(), direction.getY(), direction.getZ(),
+                maxDistance, results);
+    }
+
+    /**
+     * find all tracked entities that may be hit by a ray given by its components. results can contain entities the ray
+     * does not actually hit, such as everything overlapping the box around the ray
+     *
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check, in lengths of the direction
+     * @param results     collection to add the found entities to
+     */
+    void raycast(float x, float y, float z, float dx, float dy, float dz, float maxDistance,
+                 Collection<? super Physics> results);
+
+    /**
+     * create a new empty broadphase with the same settings as this one, used when copying scenes
+     *
+     * @return new broadphase
+     */
+    Broadphase copy();
+}
@@ -0,0 +1,260 @@
+package xyz.jeremynoesen.pseudo3d.scene.collision;
+
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box.Side;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * groups kinematic entities into islands of entities touching each other. an entity only changes the entities it
+ * touches while ticking its motion, so separate islands can tick at the same time
+ *
+ * @author Jeremy Noesen
+ */
+public class Islands {
+
+    /**
+     * most entities a task ticks before it is split into smaller tasks
+     */
+    private static final int TASK_SIZE = 256;
+
+    /**
+     * all sides, cached to avoid copying the values every check
+     */
+    private static final Side[] SIDES = Side.values();
+
+    /**
+     * entities grouped by the last build, indexed by id
+     */
+    private Physics[] tracked;
+
+    /**
+     * number of tracked entities
+     */
+    private int trackedCount;
+
+    /**
+     * ids of the tracked entities
+     */
+    private final IdentityHashMap<Physics, Integer> ids;
+
+    /**
+     * union-find parent of each id
+     */
+    private int[] parents;
+
+    /**
+     * island of each root id
+     */
+    private int[] labels;
+
+    /**
+     * ids ordered by island, and by entity order inside each island
+     */
+    private int[] members;
+
+    /**
+     * index of the first member of each island, with an extra entry for the end of the last island
+     */
+    private int[] starts;
+
+    /**
+     * number of islands
+     */
+    private int count;
+
+    /**
+     * create a new empty set of islands
+     */
+    public Islands() {
+        tracked = new Physics[16];
+        ids = new IdentityHashMap<>();
+        parents = new int[16];
+        labels = new int[16];
+        members = new int[16];
+        starts = new int[17];
+    }
+
+    /**
+     * group entities into islands using the entities they collided with during the last tick
+     *
+     * @param entities kinematic entities to group, in the order they tick
+     */
+    public void build(List<? extends Physics> entities) {
+        int size = entities.size();
+        if (tracked.length < size) {
+            int capacity = Math.max(size, tracked.length * 2);
+            tracked = new Physics[capacity];
+            parents = new int[capacity];
+            labels = new int[capacity];
+            members = new int[capacity];
+            starts = new int[capacity + 1];
+        } else if (trackedCount > size) {
+            Arrays.fill(tracked, size, trackedCount, null);
+        }
+        //make room for all entities and let go of removed ones
+
+        ids.clear();
+        trackedCount = 0;
+        for (Physics physics : entities) {
+            tracked[trackedCount] = physics;
+            parents[trackedCount] = trackedCount;
+            ids.put(physics, trackedCount++);
+        }
+        //every entity starts in its own island
+
+        for (int i = 0; i < trackedCount; i++) {
+            if (!tracked[i].isColliding()) continue;
+            for (Side side : SIDES) {
+                for (int j = 0, n = tracked[i].getCollidingCount(side); j < n; j++) {
+                    Integer id = ids.get(tracked[i].getCollidingEntity(side, j));
+                    if (id != null) union(i, id);
+                }
+            }
+        }
+        //join touching entities. statics are not tracked, so a floor does not join everything on it into one island
+
+        count = 0;
+        for (int i = 0; i < trackedCount; i++) {
+            int root = find(i);
+            parents[i] = root;
+            if (root == i) labels[i] = count++;
+        }
+        Arrays.fill(starts, 0, count + 1, 0);
+        for (int i = 0; i < trackedCount; i++) starts[labels[parents[i]] + 1]++;
+        for (int i = 0; i < count; i++) starts[i + 1] += starts[i];
+        //point every id straight at its root. roots are the first entity of each island, so islands are numbered in
+        //entity order
+
+        for (int i = 0; i < trackedCount; i++) {
+            int island = labels[parents[i]];
+            members[starts[island]++] = i;
+        }
+        for (int i = count; i > 0; i--) starts[i] = starts[i - 1];
+        starts[0] = 0;
+        //sort ids by island, using the starts as cursors and shifting them back after
+    }
+
+    /**
+     * tick the motion of every island, splitting the islands between the threads of a pool. entities in an island
+     * tick in entity order, so the result is the same as ticking every entity in order on one thread
+     *
+     * @param deltaTime time elapsed to use in calculation
+     * @param pool      pool to tick the islands on
+     */
+    public void tickMotion(float deltaTime, ForkJoinPool pool) {
+        if (count < 2 || trackedCount <= TASK_SIZE || pool.getParallelism() < 2) tickMotion(deltaTime, 0, count);
+        else pool.invoke(new Task(deltaTime, 0, count));
+    }
+
+    /**
+     * tick the motion of a range of islands on the current thread
+     *
+     * @param deltaTime time elapsed to use in calculation
+     * @param from      first island
+     * @param to        island after the last island
+     */
+    private void tickMotion(float deltaTime, int from, int to) {
+        for (int i = starts[from]; i < starts[to]; i++) tracked[members[i]].tickMotion(deltaTime);
+    }
+
+    /**
+     * get the number of islands found by the last build
+     *
+     * @return number of islands
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * get the number of entities in an island
+     *
+     * @param island island index
+     * @return number of entities in the island
+     */
+    public int getSize(int island) {
+        return starts[island + 1] - starts[island];
+    }
+
+    /**
+     * find the root of an id, halving the path to it along the way
+     *
+     * @param id entity id
+     * @return root id
+     */
+    private int find(int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+        return id;
+    }
+
+    /**
+     * join the islands of two ids, keeping the lower id as the root
+     *
+     * @param a first id
+     * @param b second id
+     */
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a < b) parents[b] = a;
+        else if (b < a) parents[a] = b;
+    }
+
+    /**
+     * task ticking a range of islands, split in half by entity count until it is small enough
+     */
+    private class Task extends RecursiveAction {
+
+        /**
+         * version of the serialized form, tasks are never serialized but forkjoin tasks are serializable
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * time elapsed to use in calculation
+         */
+        private final float deltaTime;
+
+        /**
+         * first island and island after the last island
+         */
+        private final int from, to;
+
+        /**
+         * create a new task for a range of islands
+         *
+         * @param deltaTime time elapsed to use in calculation
+         * @param from      first island
+         * @param to        island after the last island
+         */
+        private Task(float deltaTime, int from, int to) {
+            this.deltaTime = deltaTime;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * tick the islands, or split them into two tasks
+         */
+        @Override
+        protected void compute() {
+            if (to - from < 2 || starts[to] - starts[from] <= TASK_SIZE) {
+                tickMotion(deltaTime, from, to);
+                return;
+            }
+            int half = (starts[from] + starts[to]) >>> 1;
+            int mid = Arrays.binarySearch(starts, from + 1, to, half);
+            if (mid < 0) mid = -mid - 1;
+            if (mid >= to) mid = to - 1;
+            invokeAll(new Task(deltaTime, from, mid), new Task(deltaTime, mid, to));
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package xyz.jeremynoesen.pseudo3d.scene.collision;
+
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * uniform grid broadphase, entities are hashed into every cell their bounds touch and only entities sharing a cell
+ * are returned as candidates
+ *
+ * @author Jeremy Noesen
+ */
+public class SpatialHash implements Broadphase {
+
+    /**
+     * most cells an entity can cover before it is kept in a separate list that is checked by every query
+     */
+    private static final int MAX_CELLS = 64;
+
+    /**
+     * size of a cell in grid units per axis, null to size cells automatically
+     */
+    private Vector cellSize;
+
+    /**
+     * cell sizes used for the current update
+     */
+    private float cellX, cellY, cellZ;
+
+    /**
+     * entities tracked since the last update, indexed by id
+     */
+    private Physics[] tracked;
+
+    /**
+     * number of tracked entities
+     */
+    private int trackedCount;
+
+    /**
+     * cells each entity was last added to as min and max cell per axis, with a min past the max for large entities
+     */
+    private int[] ranges;
+
+    /**
+     * id of the entity in each world slot as of the last update, checked against the tracked entities before use
+     */
+    private int[] slotIds;
+
+    /**
+     * ids of entities that cover too many cells to be hashed
+     */
+    private int[] large;
+
+    /**
+     * number of large entities
+     */
+    private int largeCount;
+
+    /**
+     * open addressing table of cell keys
+     */
+    private long[] keys;
+
+    /**
+     * first entry of each cell in the table
+     */
+    private int[] heads;
+
+    /**
+     * update each table slot was last used in, slots from older updates are free
+     */
+    private int[] slotStamps;
+
+    /**
+     * current update number
+     */
+    private int stamp;
+
+    /**
+     * number of cells used in the current update
+     */
+    private int cellCount;
+
+    /**
+     * entity id for every cell entry
+     */
+    private int[] entryIds;
+
+    /**
+     * next entry in the same cell, or -1
+     */
+    private int[] entryNext;
+
+    /**
+     * number of cell entries
+     */
+    private int entryCount;
+
+    /**
+     * query each entity was last returned by, used to avoid duplicate results
+     */
+    private int[] seen;
+
+    /**
+     * current query number
+     */
+    private int queryStamp;
+
+    /**
+     * ids found by the current query
+     */
+    private int[] found;
+
+    /**
+     * reusable box around the ray being cast
+     */
+    private final Box ray;
+
+    /**
+     * create a new spatial hash that sizes its cells automatically
+     */
+    public SpatialHash() {
+        this(null);
+    }
+
+    /**
+     * create a new spatial hash with a set cell size
+     *
+     * @param cellSize size of a cell in grid units, null to size cells automatically
+     */
+    public SpatialHash(Vector cellSize) {
+        this.cellSize = cellSize;
+        tracked = new Physics[16];
+        seen = new int[16];
+        found = new int[16];
+        large = new int[16];
+        ranges = new int[96];
+        slotIds = new int[16];
+        keys = new long[64];
+        heads = new int[64];
+        slotStamps = new int[64];
+        entryIds = new int[64];
+        entryNext = new int[64];
+        ray = new Box();
+    }
+
+    /**
+     * rebuild the hash from the current bounds of the entities
+     *
+     * @param entities all entities to track
+     */
+    @Override
+    public void update(List<? extends Physics> entities) {
+        int size = entities.size();
+        if (tracked.length < size) {
+            int capacity = Math.max(size, tracked.length * 2);
+            tracked = new Physics[capacity];
+            seen = new int[capacity];
+            found = new int[capacity];
+            large = new int[capacity];
+            ranges = new int[capacity * 6];
+        } else if (trackedCount > size) {
+            Arrays.fill(tracked, size, trackedCount, null);
+        }
+        //make room for all entities and let go of removed ones
+
+        if (cellSize != null) {
+            cellX = cellSize.getX();
+            cellY = cellSize.getY();
+            cellZ = cellSize.getZ();
+        } else {
+            float width = 0, height = 0, depth = 0;
+            for (Physics physics : entities) {
+                width += physics.getWidth();
+                height += physics.getHeight();
+                depth += physics.getDepth();
+            }
+            cellX = size == 0 ? 1 : Math.max(1, 2 * width / size);
+            cellY = size == 0 ? 1 : Math.max(1, 2 * height / size);
+            cellZ = size == 0 ? 1 : Math.max(1, 2 * depth / size);
+        }
+        //automatic cells are twice the average entity size, and never smaller than one grid unit
+
+        stamp++;
+        cellCount = 0;
+        entryCount = 0;
+        largeCount = 0;
+        trackedCount = 0;
+        //start a new update, old table slots are ignored from now on
+
+        for (Physics physics : entities) {
+            int id = trackedCount++;
+            tracked[id] = physics;
+            int slot = physics.getSlot();
+            if (slot >= slotIds.length) slotIds = Arrays.copyOf(slotIds, Math.max(slot + 1, slotIds.length * 2));
+            slotIds[slot] = id;
+            ranges[id * 6] = 1;
+            ranges[id * 6 + 1] = 0;
+            //remember the id of the slot so moved entities can be found without a search, and start with no cells
+
+            int x0 = cell(physics.getMinX(), cellX), x1 = cell(physics.getMaxX(), cellX);
+            int y0 = cell(physics.getMinY(), cellY), y1 = cell(physics.getMaxY(), cellY);
+            int z0 = cell(physics.getMinZ(), cellZ), z1 = cell(physics.getMaxZ(), cellZ);
+
+            if (count(x0, x1, y0, y1, z0, z1) > MAX_CELLS) {
+                addLarge(id);
+                continue;
+            }
+            //keep very large entities out of the table
+
+            addCells(id, x0, x1, y0, y1, z0, z1);
+        }
+    }
+
+    /**
+     * add an entity that moved since the last update to the cells it touches now. it stays in its old cells as well,
+     * which only adds candidates that are dropped once their bounds are compared
+     *
+     * @param physics entity that moved
+     */
+    @Override
+    public void refresh(Physics physics) {
+        if (stamp == 0) return;
+        int slot = physics.getSlot(), id = -1;
+        if (slot < slotIds.length && slotIds[slot] < trackedCount && tracked[slotIds[slot]] == physics) {
+            id = slotIds[slot];
+        } else {
+            for (int i = 0; i < trackedCount && id < 0; i++) {
+                if (tracked[i] == physics) id = i;
+            }
+        }
+        //find the id from the slot, or search for entities from other worlds sharing a slot number
+
+        int r = id * 6;
+        if (id < 0 || ranges[r] > ranges[r + 1]) return;
+        //large entities are not in the table, every query checks their current bounds
+
+        int x0 = cell(physics.getMinX(), cellX), x1 = cell(physics.getMaxX(), cellX);
+        int y0 = cell(physics.getMinY(), cellY), y1 = cell(physics.getMaxY(), cellY);
+        int z0 = cell(physics.getMinZ(), cellZ), z1 = cell(physics.getMaxZ(), cellZ);
+        if (x0 >= ranges[r] && x1 <= ranges[r + 1] && y0 >= ranges[r + 2] && y1 <= ranges[r + 3] &&
+                z0 >= ranges[r + 4] && z1 <= ranges[r + 5]) return;
+        //nothing to do if it is still inside the cells it was added to
+
+        if (count(x0, x1, y0, y1, z0, z1) > MAX_CELLS) {
+            addLarge(id);
+            return;
+        }
+        addCells(id, x0, x1, y0, y1, z0, z1);
+    }
+
+    /**
+     * add an entity to every cell in a range, skipping the cells of the range it was last added to. the range is then
+     * remembered as the cells of the entity
+     *
+     * @param id entity id
+     * @param x0 minimum x cell
+     * @param x1 maximum x cell
+     * @param y0 minimum y cell
+     * @param y1 maximum y cell
+     * @param z0 minimum z cell
+     * @param z1 maximum z cell
+     */
+    private void addCells(int id, int x0, int x1, int y0, int y1, int z0, int z1) {
+        int r = id * 6;
+        for (int x = x0; x <= x1; x++) {
+            boolean oldX = x >= ranges[r] && x <= ranges[r + 1];
+            for (int y = y0; y <= y1; y++) {
+                boolean oldY = oldX && y >= ranges[r + 2] && y <= ranges[r + 3];
+                for (int z = z0; z <= z1; z++) {
+                    if (oldY && z >= ranges[r + 4] && z <= ranges[r + 5]) continue;
+                    insert(key(x, y, z), id);
+                }
+            }
+        }
+        ranges[r] = x0;
+        ranges[r + 1] = x1;
+        ranges[r + 2] = y0;
+        ranges[r + 3] = y1;
+        ranges[r + 4] = z0;
+        ranges[r + 5] = z1;
+    }
+
+    /**
+     * keep an entity that covers too many cells out of the table, so every query checks its bounds directly
+     *
+     * @param id entity id
+     */
+    private void addLarge(int id) {
+        large[largeCount++] = id;
+        ranges[id * 6] = 1;
+        ranges[id * 6 + 1] = 0;
+    }
+
+    /**
+     * find all tracked entities sharing a cell with a box. results are added in the order the entities were given to
+     * the last update, so collisions resolve in the same order as without a broadphase
+     *
+     * @param box     box to check
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void query(Box box, Collection<? super Physics> results) {
+        query(box, null, results);
+    }
+
+    /**
+     * find all tracked entities sharing a cell with a tracked entity whose layers and masks let them collide, so
+     * filtered pairs are dropped before any bounds are compared
+     *
+     * @param physics entity to find candidates for
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void candidates(Physics physics, Collection<? super Physics> results) {
+        query(physics, physics, results);
+    }
+
+    /**
+     * find all tracked entities sharing a cell with a box, skipping entities filtered out by layers
+     *
+     * @param box     box to check
+     * @param filter  entity whose layers and mask the results have to match, or null for no filter
+     * @param results collection to add the found entities to
+     */
+    private void query(Box box, Physics filter, Collection<? super Physics> results) {
+        if (stamp == 0) return;
+        //nothing is tracked before the first update, and the empty table would look full
+
+        queryStamp++;
+
+        int x0 = cell(box.getMinX(), cellX), x1 = cell(box.getMaxX(), cellX);
+        int y0 = cell(box.getMinY(), cellY), y1 = cell(box.getMaxY(), cellY);
+        int z0 = cell(box.getMinZ(), cellZ), z1 = cell(box.getMaxZ(), cellZ);
+
+        if (count(x0, x1, y0, y1, z0, z1) > MAX_CELLS) {
+            for (int i = 0; i < trackedCount; i++) {
+                if ((filter == null || filter.interacts(tracked[i])) && box.overlaps(tracked[i])) {
+                    results.add(tracked[i]);
+                }
+            }
+            return;
+        }
+        //for very large boxes, checking every entity is faster than visiting every cell
+
+        int foundCount = 0;
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    int slot = find(key(x, y, z));
+                    if (slot < 0) continue;
+                    for (int entry = heads[slot]; entry >= 0; entry = entryNext[entry]) {
+                        int id = entryIds[entry];
+                        if (seen[id] != queryStamp) {
+                            seen[id] = queryStamp;
+                            if (filter == null || filter.interacts(tracked[id])) found[foundCount++] = id;
+                        }
+                    }
+                }
+            }
+        }
+        //find every entity in the touched cells once
+
+        for (int i = 0; i < largeCount; i++) {
+            int id = large[i];
+            if (seen[id] != queryStamp && (filter == null || filter.interacts(tracked[id])) &&
+                    box.overlaps(tracked[id])) {
+                seen[id] = queryStamp;
+                found[foundCount++] = id;
+            }
+        }
+        //large entities are not in the table, so check them directly
+
+        Arrays.sort(found, 0, foundCount);
+        for (int i = 0; i < foundCount; i++) results.add(tracked[found[i]]);
+        //add results in entity order
+    }
+
+    /**
+     * find all tracked entities sharing a cell with the box around a ray
+     *
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check, in lengths of the direction
+     * @param results     collection to add the found entities to
+     */
+    @Override
+    public void raycast(float x, float y, float z, float dx, float dy, float dz, float maxDistance,
+                        Collection<? super Physics> results) {
+        float ex = dx * maxDistance, ey = dy * maxDistance, ez = dz * maxDistance;
+        ray.setDimensions(Math.abs(ex), Math.abs(ey), Math.abs(ez)).setPosition(x + ex / 2, y + ey / 2, z + ez / 2);
+        query(ray, results);
+        //reuse the same box for every ray
+    }
+
+    /**
+     * create a new empty spatial hash with the same cell size
+     *
+     * @return new spatial hash
+     */
+    @Override
+    public Broadphase copy() {
+        return new SpatialHash(cellSize);
+    }
+
+    /**
+     * get the cell size of the hash
+     *
+     * @return cell size in grid units, or null if cells are sized automatically
+     */
+    public Vector getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * set the cell size of the hash, takes effect on the next update
+     *
+     * @param cellSize cell size in grid units, null to size cells automatically
+     */
+    public SpatialHash setCellSize(Vector cellSize) {
+        this.cellSize = cellSize;
+        return this;
+    }
+
+    /**
+     * get the cell coordinate of a position on an axis
+     *
+     * @param position position on axis
+     * @param size     cell size on axis
+     * @return cell coordinate
+     */
+    private static int cell(float position, float size) {
+        return (int) Math.floor(position / size);
+    }
+
+    /**
+     * count the cells in a range of cell coordinates
+     *
+     * @return number of cells
+     */
+    private static long count(int x0, int x1, int y0, int y1, int z0, int z1) {
+        return ((long) x1 - x0 + 1) * ((long) y1 - y0 + 1) * ((long) z1 - z0 + 1);
+    }
+
+    /**
+     * pack cell coordinates into a single key
+     *
+     * @return cell key
+     */
+    private static long key(int x, int y, int z) {
+        return (((long) x & 0x1FFFFF) << 42) | (((long) y & 0x1FFFFF) << 21) | ((long) z & 0x1FFFFF);
+    }
+
+    /**
+     * get the starting table slot for a key
+     *
+     * @param key cell key
+     * @return slot index before masking
+     */
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * find the table slot of a cell used in the current update
+     *
+     * @param key cell key
+     * @return slot index, or -1 if the cell is empty
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; slotStamps[slot] == stamp; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * add an entity to a cell
+     *
+     * @param key cell key
+     * @param id  entity id
+     */
+    private void insert(long key, int id) {
+        int slot = find(key);
+        if (slot < 0) {
+            if ((cellCount + 1) * 2 > keys.length) resize();
+            int mask = keys.length - 1;
+            slot = hash(key) & mask;
+            while (slotStamps[slot] == stamp) slot = (slot + 1) & mask;
+            slotStamps[slot] = stamp;
+            keys[slot] = key;
+            heads[slot] = -1;
+            cellCount++;
+        }
+        //claim a new slot if this is the first entity in the cell
+
+        if (entryCount == entryIds.length) {
+            entryIds = Arrays.copyOf(entryIds, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryIds[entryCount] = id;
+        entryNext[entryCount] = heads[slot];
+        heads[slot] = entryCount++;
+        //link the entity into the cell
+    }
+
+    /**
+     * double the size of the table, keeping the cells of the current update
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldStamps = slotStamps;
+        keys = new long[oldKeys.length * 2];
+        heads = new int[keys.length];
+        slotStamps = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] != stamp) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (slotStamps[slot] == stamp) slot = (slot + 1) & mask;
+            slotStamps[slot] = stamp;
+            keys[slot] = oldKeys[i];
+            heads[slot] = oldHeads[i];
+        }
+    }
+}
@@ -0,0 +1,629 @@
+package xyz.jeremynoesen.pseudo3d.scene.collision;
+
+import xyz.jeremynoesen.pseudo3d.scene.entity.Physics;
+import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * sweep and prune broadphase. the minimum and maximum of every entity are kept sorted on each axis between updates,
+ * so entities that barely move only need a few swaps to keep the axes sorted. bounds are padded by a margin, so pairs
+ * that only start touching when collisions push entities after the update are still candidates
+ *
+ * @author Jeremy Noesen
+ */
+public class SweepAndPrune implements Broadphase {
+
+    /**
+     * flag set on endpoints that are the maximum of an entity
+     */
+    private static final long MAXIMUM = 0x80000000L;
+
+    /**
+     * distance the bounds of every entity are padded by, in grid units
+     */
+    private float margin;
+
+    /**
+     * ids of all tracked entities
+     */
+    private final IdentityHashMap<Physics, Integer> ids;
+
+    /**
+     * tracked entities by id
+     */
+    private Physics[] tracked;
+
+    /**
+     * index of each entity in the list given to the last update
+     */
+    private int[] order;
+
+    /**
+     * last update each entity was seen in
+     */
+    private int[] seen;
+
+    /**
+     * bounds of each entity at the last update, indexed by axis and then id
+     */
+    private float[][] min, max;
+
+    /**
+     * sorted endpoints per axis, each made of the value, whether it is a maximum, and the entity id
+     */
+    private long[][] endpoints;
+
+    /**
+     * number of endpoints per axis
+     */
+    private int endpointCount;
+
+    /**
+     * collision layers and masks of every id as of the last update
+     */
+    private int[] layers, masks;
+
+    /**
+     * ids that are free to reuse
+     */
+    private int[] freeIds;
+
+    /**
+     * number of free ids
+     */
+    private int freeCount;
+
+    /**
+     * next id that has never been used
+     */
+    private int nextId;
+
+    /**
+     * current update number
+     */
+    private int stamp;
+
+    /**
+     * entities overlapping on the sweep axis while sweeping, and their index in the list
+     */
+    private int[] active, activeIndex;
+
+    /**
+     * candidate pairs found in the last update
+     */
+    private int[] pairA, pairB;
+
+    /**
+     * number of candidate pairs
+     */
+    private int pairCount;
+
+    /**
+     * start of each entity's candidates in the neighbor list
+     */
+    private int[] offsets;
+
+    /**
+     * candidates of all entities, grouped by entity
+     */
+    private int[] neighbors;
+
+    /**
+     * ids of entities that moved out of their padded bounds since the last update
+     */
+    private int[] moved;
+
+    /**
+     * number of moved entities
+     */
+    private int movedCount;
+
+    /**
+     * update each entity was last marked as moved in
+     */
+    private int[] movedStamps;
+
+    /**
+     * entities found by a query or as extra candidates, each packed as its entity order above its id
+     */
+    private long[] found;
+
+    /**
+     * reusable box around the ray being cast
+     */
+    private final Box ray;
+
+    /**
+     * create a new sweep and prune broadphase with a margin of a tenth of a grid unit
+     */
+    public SweepAndPrune() {
+        this(0.1f);
+    }
+
+    /**
+     * create a new sweep and prune broadphase with a set margin
+     *
+     * @param margin distance the bounds of every entity are padded by, in grid units
+     */
+    public SweepAndPrune(float margin) {
+        this.margin = margin;
+        ids = new IdentityHashMap<>();
+        tracked = new Physics[16];
+        order = new int[16];
+        seen = new int[16];
+        min = new float[3][16];
+        max = new float[3][16];
+        endpoints = new long[3][32];
+        freeIds = new int[16];
+        active = new int[16];
+        activeIndex = new int[16];
+        layers = new int[16];
+        masks = new int[16];
+        pairA = new int[64];
+        pairB = new int[64];
+        offsets = new int[17];
+        neighbors = new int[128];
+        moved = new int[16];
+        movedStamps = new int[16];
+        found = new long[16];
+        ray = new Box();
+    }
+
+    /**
+     * update the bounds of all entities, repair the sorted axes, and sweep for candidate pairs
+     *
+     * @param entities all entities to track
+     */
+    @Override
+    public void update(List<? extends Physics> entities) {
+        stamp++;
+        movedCount = 0;
+        int added = 0, index = 0;
+
+        for (Physics physics : entities) {
+            Integer boxed = ids.get(physics);
+            int id;
+            if (boxed == null) {
+                id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+                ensureIds(id + 1);
+                ids.put(physics, id);
+                tracked[id] = physics;
+                addEndpoints(id);
+                added++;
+            } else {
+                id = boxed;
+            }
+            //give new entities an id and endpoints
+
+            seen[id] = stamp;
+            order[id] = index++;
+            layers[id] = physics.getLayers();
+            masks[id] = physics.getMask();
+            min[0][id] = physics.getMinX() - margin + 0.0f;
+            min[1][id] = physics.getMinY() - margin + 0.0f;
+            min[2][id] = physics.getMinZ() - margin + 0.0f;
+            max[0][id] = physics.getMaxX() + margin + 0.0f;
+            max[1][id] = physics.getMaxY() + margin + 0.0f;
+            max[2][id] = physics.getMaxZ() + margin + 0.0f;
+            //store the padded bounds, adding zero turns negative zero into zero so touching boxes sort correctly
+        }
+
+        if (ids.size() > index) removeUnseen();
+        //forget entities that are no longer in the list
+
+        for (int axis = 0; axis < 3; axis++) {
+            long[] axisEndpoints = endpoints[axis];
+            for (int i = 0; i < endpointCount; i++) {
+                int id = (int) (axisEndpoints[i] & 0x7FFFFFFF);
+                boolean maximum = (axisEndpoints[i] & MAXIMUM) != 0;
+                axisEndpoints[i] = endpoint(maximum ? max[axis][id] : min[axis][id], maximum, id);
+            }
+            //refresh endpoint values in their old order
+
+            if (added > endpointCount / 16) Arrays.sort(axisEndpoints, 0, endpointCount);
+            else insertionSort(axisEndpoints, endpointCount);
+            //a full sort is only worth it after many new entities, otherwise the axis is nearly sorted already
+        }
+
+        sweep(sweepAxis());
+        group();
+    }
+
+    /**
+     * mark an entity as moved if it left its padded bounds, so it is checked against the bounds of every entity looking
+     * for candidates until the next update
+     *
+     * @param physics entity that moved
+     */
+    @Override
+    public void refresh(Physics physics) {
+        Integer boxed = ids.get(physics);
+        if (boxed == null) return;
+        int id = boxed;
+        if (movedStamps[id] == stamp || contains(id, physics)) return;
+        movedStamps[id] = stamp;
+        moved[movedCount++] = id;
+    }
+
+    /**
+     * find all tracked entities overlapping a box
+     *
+     * @param box     box to check
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void query(Box box, Collection<? super Physics> results) {
+        int count = collect(box, null);
+        for (int i = 0; i < count; i++) results.add(tracked[(int) found[i]]);
+    }
+
+    /**
+     * add the candidate pairs of an entity found in the last update, which are pairs whose padded bounds overlapped.
+     * results are added in entity order
+     *
+     * @param physics entity to find candidates for
+     * @param results collection to add the found entities to
+     */
+    @Override
+    public void candidates(Physics physics, Collection<? super Physics> results) {
+        Integer boxed = ids.get(physics);
+        if (boxed == null) {
+            query(physics, results);
+            return;
+        }
+        int id = boxed;
+        if (movedStamps[id] == stamp) {
+            int count = collect(physics, physics);
+            for (int i = 0; i < count; i++) results.add(tracked[(int) found[i]]);
+            return;
+        }
+        //an entity that left its own padded bounds has to look for candidates where it is now
+
+        int count = 0;
+        for (int i = 0; i < movedCount; i++) {
+            int other = moved[i];
+            if (other == id || !Physics.interacts(layers[id], masks[id], layers[other], masks[other]) ||
+                    !overlaps(id, tracked[other])) continue;
+            if (count == found.length) found = Arrays.copyOf(found, count * 2);
+            found[count++] = ((long) order[other] << 32) | other;
+        }
+        Arrays.sort(found, 0, count);
+        //find entities that moved into the padded bounds of this one since the update, sorted by entity order
+
+        int i = offsets[id], end = offsets[id + 1];
+        for (int f = 0; f < count; f++) {
+            int other = (int) found[f];
+            while (i < end && order[neighbors[i]] < order[other]) results.add(tracked[neighbors[i++]]);
+            if (i < end && neighbors[i] == other) i++;
+            results.add(tracked[other]);
+        }
+        while (i < end) results.add(tracked[neighbors[i++]]);
+        //merge them into the pairs from the update, keeping entity order and skipping ones that were already pairs
+    }
+
+    /**
+     * find all tracked entities overlapping the box around a ray
+     *
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check, in lengths of the direction
+     * @param results     collection to add the found entities to
+     */
+    @Override
+    public void raycast(float x, float y, float z, float dx, float dy, float dz, float maxDistance,
+                        Collection<? super Physics> results) {
+        float ex = dx * maxDistance, ey = dy * maxDistance, ez = dz * maxDistance;
+        ray.setDimensions(Math.abs(ex), Math.abs(ey), Math.abs(ez)).setPosition(x + ex / 2, y + ey / 2, z + ez / 2);
+        query(ray, results);
+        //reuse the same box for every ray
+    }
+
+    /**
+     * create a new empty sweep and prune broadphase with the same margin
+     *
+     * @return new sweep and prune broadphase
+     */
+    @Override
+    public Broadphase copy() {
+        return new SweepAndPrune(margin);
+    }
+
+    /**
+     * get the margin the bounds of every entity are padded by
+     *
+     * @return margin in grid units
+     */
+    public float getMargin() {
+        return margin;
+    }
+
+    /**
+     * set the margin the bounds of every entity are padded by, used from the next update
+     *
+     * @param margin margin in grid units
+     */
+    public SweepAndPrune setMargin(float margin) {
+        this.margin = margin;
+        return this;
+    }
+
+    /**
+     * find all tracked entities overlapping a box where they are now, sorted by entity order into the found ids
+     *
+     * @param box    box to check
+     * @param filter entity whose layers and mask the results have to match, or null for no filter
+     * @return number of entities found
+     */
+    private int collect(Box box, Physics filter) {
+        int axis = sweepAxis();
+        float boxMin = axis == 0 ? box.getMinX() : axis == 1 ? box.getMinY() : box.getMinZ();
+        float boxMax = axis == 0 ? box.getMaxX() : axis == 1 ? box.getMaxY() : box.getMaxZ();
+        long[] axisEndpoints = endpoints[axis];
+        long limit = endpoint(boxMax + 0.0f, true, 0x7FFFFFFF);
+
+        int low = 0, high = endpointCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (axisEndpoints[mid] <= limit) low = mid + 1;
+            else high = mid;
+        }
+        //find the first endpoint past the box on the sweep axis
+
+        int count = 0;
+        for (int i = 0; i < low; i++) {
+            if ((axisEndpoints[i] & MAXIMUM) != 0) continue;
+            int id = (int) (axisEndpoints[i] & 0x7FFFFFFF);
+            if (movedStamps[id] == stamp || max[axis][id] < boxMin || !box.overlaps(tracked[id]) ||
+                    filter != null && (filter == tracked[id] || !filter.interacts(tracked[id]))) continue;
+            if (count == found.length) found = Arrays.copyOf(found, count * 2);
+            found[count++] = ((long) order[id] << 32) | id;
+        }
+        //check every entity starting before the end of the box, other than ones that left their endpoints
+
+        for (int i = 0; i < movedCount; i++) {
+            int id = moved[i];
+            if (!box.overlaps(tracked[id]) ||
+                    filter != null && (filter == tracked[id] || !filter.interacts(tracked[id]))) continue;
+            if (count == found.length) found = Arrays.copyOf(found, count * 2);
+            found[count++] = ((long) order[id] << 32) | id;
+        }
+        //check moved entities where they are now
+
+        Arrays.sort(found, 0, count);
+        return count;
+    }
+
+    /**
+     * check if an entity is still inside the padded bounds it had at the last update
+     *
+     * @param id      entity id
+     * @param physics entity
+     * @return true if the entity is inside its padded bounds
+     */
+    private boolean contains(int id, Physics physics) {
+        return min[0][id] <= physics.getMinX() && min[1][id] <= physics.getMinY() && min[2][id] <= physics.getMinZ() &&
+                max[0][id] >= physics.getMaxX() && max[1][id] >= physics.getMaxY() && max[2][id] >= physics.getMaxZ();
+    }
+
+    /**
+     * check if an entity overlaps the padded bounds another entity had at the last update
+     *
+     * @param id      id of the entity whose padded bounds are checked
+     * @param physics entity to check
+     * @return true if they overlap
+     */
+    private boolean overlaps(int id, Physics physics) {
+        return min[0][id] <= physics.getMaxX() && max[0][id] >= physics.getMinX() &&
+                min[1][id] <= physics.getMaxY() && max[1][id] >= physics.getMinY() &&
+                min[2][id] <= physics.getMaxZ() && max[2][id] >= physics.getMinZ();
+    }
+
+    /**
+     * make sure all per entity arrays can hold the given number of ids
+     *
+     * @param count number of ids
+     */
+    private void ensureIds(int count) {
+        if (tracked.length >= count) return;
+        int capacity = Math.max(count, tracked.length * 2);
+        tracked = Arrays.copyOf(tracked, capacity);
+        order = Arrays.copyOf(order, capacity);
+        seen = Arrays.copyOf(seen, capacity);
+        freeIds = Arrays.copyOf(freeIds, capacity);
+        active = Arrays.copyOf(active, capacity);
+        activeIndex = Arrays.copyOf(activeIndex, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        masks = Arrays.copyOf(masks, capacity);
+        moved = Arrays.copyOf(moved, capacity);
+        movedStamps = Arrays.copyOf(movedStamps, capacity);
+        offsets = Arrays.copyOf(offsets, capacity + 1);
+        for (int axis = 0; axis < 3; axis++) {
+            min[axis] = Arrays.copyOf(min[axis], capacity);
+            max[axis] = Arrays.copyOf(max[axis], capacity);
+            endpoints[axis] = Arrays.copyOf(endpoints[axis], capacity * 2);
+        }
+    }
+
+    /**
+     * add the endpoints of a new entity to the end of each axis, they are sorted in afterwards
+     *
+     * @param id entity id
+     */
+    private void addEndpoints(int id) {
+        for (int axis = 0; axis < 3; axis++) {
+            endpoints[axis][endpointCount] = endpoint(0, false, id);
+            endpoints[axis][endpointCount + 1] = endpoint(0, true, id);
+        }
+        endpointCount += 2;
+    }
+
+    /**
+     * remove all entities that were not in the last update
+     */
+    private void removeUnseen() {
+        ids.values().removeIf(id -> {
+            if (seen[id] == stamp) return false;
+            tracked[id] = null;
+            freeIds[freeCount++] = id;
+            return true;
+        });
+        //free the ids of removed entities
+
+        for (int axis = 0; axis < 3; axis++) {
+            long[] axisEndpoints = endpoints[axis];
+            int kept = 0;
+            for (int i = 0; i < endpointCount; i++) {
+                if (tracked[(int) (axisEndpoints[i] & 0x7FFFFFFF)] != null) axisEndpoints[kept++] = axisEndpoints[i];
+            }
+        }
+        endpointCount = ids.size() * 2;
+        //drop their endpoints, keeping the rest in order
+    }
+
+    /**
+     * pick the axis with the largest spread of entities to sweep along, which gives the fewest false candidates
+     *
+     * @return axis index
+     */
+    private int sweepAxis() {
+        if (endpointCount == 0) return 0;
+        int best = 0;
+        float bestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            float spread = value(endpoints[axis][endpointCount - 1]) - value(endpoints[axis][0]);
+            if (spread > bestSpread) {
+                bestSpread = spread;
+                best = axis;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * sweep along an axis, testing every pair of entities that overlap on it against the other two axes
+     *
+     * @param axis axis to sweep
+     */
+    private void sweep(int axis) {
+        int axisB = (axis + 1) % 3, axisC = (axis + 2) % 3;
+        float[] minB = min[axisB], maxB = max[axisB], minC = min[axisC], maxC = max[axisC];
+        long[] axisEndpoints = endpoints[axis];
+        int activeCount = 0;
+        pairCount = 0;
+
+        for (int i = 0; i < endpointCount; i++) {
+            int id = (int) (axisEndpoints[i] & 0x7FFFFFFF);
+            if ((axisEndpoints[i] & MAXIMUM) != 0) {
+                int last = active[--activeCount];
+                active[activeIndex[id]] = last;
+                activeIndex[last] = activeIndex[id];
+                //entity ended, stop testing against it
+            } else {
+                for (int j = 0; j < activeCount; j++) {
+                    int other = active[j];
+                    if (!Physics.interacts(layers[id], masks[id], layers[other], masks[other])) continue;
+                    //drop pairs filtered out by layers before comparing bounds
+                    if (minB[id] <= maxB[other] && maxB[id] >= minB[other] &&
+                            minC[id] <= maxC[other] && maxC[id] >= minC[other]) {
+                        if (pairCount == pairA.length) {
+                            pairA = Arrays.copyOf(pairA, pairCount * 2);
+                            pairB = Arrays.copyOf(pairB, pairCount * 2);
+                        }
+                        pairA[pairCount] = id;
+                        pairB[pairCount++] = other;
+                    }
+                }
+                //test against every entity still open on this axis
+
+                activeIndex[id] = activeCount;
+                active[activeCount++] = id;
+            }
+        }
+    }
+
+    /**
+     * group the pairs by entity so the candidates of each entity can be read directly, sorted by entity order
+     */
+    private void group() {
+        int idCount = nextId;
+        Arrays.fill(offsets, 0, idCount + 1, 0);
+        for (int i = 0; i < pairCount; i++) {
+            offsets[pairA[i] + 1]++;
+            offsets[pairB[i] + 1]++;
+        }
+        for (int id = 0; id < idCount; id++) offsets[id + 1] += offsets[id];
+        //count candidates per entity and turn the counts into offsets
+
+        if (neighbors.length < pairCount * 2) neighbors = new int[Math.max(pairCount * 2, neighbors.length * 2)];
+        Arrays.fill(active, 0, idCount, 0);
+        for (int i = 0; i < pairCount; i++) {
+            neighbors[offsets[pairA[i]] + active[pairA[i]]++] = pairB[i];
+            neighbors[offsets[pairB[i]] + active[pairB[i]]++] = pairA[i];
+        }
+        //fill candidates, reusing the active list as a fill counter since the sweep is done with it
+
+        for (int id = 0; id < idCount; id++) {
+            for (int i = offsets[id] + 1; i < offsets[id + 1]; i++) {
+                int neighbor = neighbors[i];
+                int j = i - 1;
+                while (j >= offsets[id] && order[neighbors[j]] > order[neighbor]) {
+                    neighbors[j + 1] = neighbors[j];
+                    j--;
+                }
+                neighbors[j + 1] = neighbor;
+            }
+        }
+        //sort each entity's candidates by entity order
+    }
+
+    /**
+     * sort a nearly sorted array of endpoints in place
+     *
+     * @param array endpoints
+     * @param count number of endpoints
+     */
+    private static void insertionSort(long[] array, int count) {
+        for (int i = 1; i < count; i++) {
+            long key = array[i];
+            int j = i - 1;
+            while (j >= 0 && array[j] > key) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = key;
+        }
+    }
+
+    /**
+     * pack an endpoint so that sorting the packed values sorts by value, with minimums before maximums
+     *
+     * @param value   position of the endpoint
+     * @param maximum true if the endpoint is a maximum
+     * @param id      entity id
+     * @return packed endpoint
+     */
+    private static long endpoint(float value, boolean maximum, int id) {
+        int bits = Float.floatToIntBits(value);
+        bits ^= (bits >> 31) & 0x7FFFFFFF;
+        return ((long) bits << 32) | (maximum ? MAXIMUM : 0) | id;
+    }
+
+    /**
+     * get the value of a packed endpoint
+     *
+     * @param endpoint packed endpoint
+     * @return position of the endpoint
+     */
+    private static float value(long endpoint) {
+        int bits = (int) (endpoint >> 32);
+        return Float.intBitsToFloat(bits ^ ((bits >> 31) & 0x7FFFFFFF));
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+/**
+ * listener for changes in the entities touching an entity, either by colliding or overlapping. events are sent once
+ * per tick after all collisions are done
+ *
+ * @author Jeremy Noesen
+ */
+public interface ContactListener {
+
+    /**
+     * called when an entity starts touching another entity
+     *
+     * @param physics entity the event is for
+     * @param other   entity it started touching
+     */
+    default void enter(Physics physics, Physics other) {
+    }
+
+    /**
+     * called every tick an entity keeps touching another entity after the tick it started
+     *
+     * @param physics entity the event is for
+     * @param other   entity it is still touching
+     */
+    default void stay(Physics physics, Physics other) {
+    }
+
+    /**
+     * called when an entity stops touching another entity
+     *
+     * @param physics entity the event is for
+     * @param other   entity it stopped touching
+     */
+    default void exit(Physics physics, Physics other) {
+    }
+}
@@ -0,0 +1,279 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import xyz.jeremynoesen.pseudo3d.scene.util.Box.Side;
+
+import java.util.Arrays;
+
+/**
+ * cache of contacts between pairs of entities, kept between ticks. a pair whose bounds did not change since its
+ * contact was found repeats the contact instead of working out the overlap again
+ *
+ * @author Jeremy Noesen
+ */
+public class Contacts {
+
+    /**
+     * keys of the table slots, the slots of both entities of the contact
+     */
+    private long[] keys;
+
+    /**
+     * contacts of the table slots, null for empty slots
+     */
+    private Contact[] values;
+
+    /**
+     * spare table the contacts that stay are moved into when pruning, so pruning does not make a new table
+     */
+    private long[] spareKeys;
+
+    /**
+     * spare contacts table, swapped with the contacts table when pruning
+     */
+    private Contact[] spareValues;
+
+    /**
+     * number of contacts in the table
+     */
+    private int size;
+
+    /**
+     * pruned contacts kept to be used again for new contacts
+     */
+    private Contact[] free;
+
+    /**
+     * number of pruned contacts kept
+     */
+    private int freeCount;
+
+    /**
+     * current prune number, contacts not found or repeated since the last prune have an older stamp
+     */
+    private int stamp;
+
+    /**
+     * create a new empty contact cache
+     */
+    public Contacts() {
+        keys = new long[64];
+        values = new Contact[64];
+        spareKeys = new long[64];
+        spareValues = new Contact[64];
+        free = new Contact[16];
+    }
+
+    /**
+     * get the cached contact of an entity with another entity
+     *
+     * @param first  entity checking its collisions
+     * @param second entity it is checked against
+     * @return contact, or null if there is none
+     */
+    Contact get(Physics first, Physics second) {
+        if (first.getWorld() != second.getWorld()) return null;
+        Contact contact = values[slot(key(first, second))];
+        return contact != null && contact.first == first && contact.second == second ? contact : null;
+    }
+
+    /**
+     * cache a contact found by a full check, along with the current bounds versions of both entities
+     *
+     * @param first  entity checking its collisions
+     * @param second entity it collided with or overlapped
+     * @param side   side of the first entity the second entity is on, or null if they only overlap
+     */
+    void put(Physics first, Physics second, Side side) {
+        if (first.getWorld() != second.getWorld()) return;
+        long key = key(first, second);
+        int slot = slot(key);
+        Contact contact = values[slot];
+        if (contact == null) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+                slot = slot(key);
+            }
+            if (freeCount > 0) {
+                contact = free[--freeCount];
+                free[freeCount] = null;
+            } else {
+                contact = new Contact();
+            }
+            keys[slot] = key;
+            values[slot] = contact;
+            size++;
+        }
+        //claim a slot for a new pair, using a pruned contact if there is one
+
+        contact.first = first;
+        contact.second = second;
+        contact.side = side;
+        contact.firstVersion = first.getVersion();
+        contact.secondVersion = second.getVersion();
+        contact.stamp = stamp;
+    }
+
+    /**
+     * mark a contact as still touching this tick
+     *
+     * @param contact repeated contact
+     */
+    void keep(Contact contact) {
+        contact.stamp = stamp;
+    }
+
+    /**
+     * remove contacts that were not found or repeated since the last prune, called once per tick after collisions
+     */
+    public void prune() {
+        long[] oldKeys = keys;
+        Contact[] oldValues = values;
+        keys = spareKeys;
+        values = spareValues;
+        spareKeys = oldKeys;
+        spareValues = oldValues;
+        size = 0;
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            Contact contact = oldValues[i];
+            if (contact == null) continue;
+            oldValues[i] = null;
+            if (contact.stamp == stamp) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = contact;
+                size++;
+            } else {
+                release(contact);
+            }
+        }
+        //move the contacts that stay into the spare table, leaving the old table empty to be the next spare
+        stamp++;
+    }
+
+    /**
+     * remove all contacts
+     */
+    public void clear() {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) continue;
+            release(values[i]);
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * get the number of cached contacts
+     *
+     * @return number of contacts
+     */
+    public int getCount() {
+        return size;
+    }
+
+    /**
+     * keep a removed contact to be used again, letting go of its entities so removed ones can be collected
+     *
+     * @param contact removed contact
+     */
+    private void release(Contact contact) {
+        contact.first = null;
+        contact.second = null;
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = contact;
+    }
+
+    /**
+     * find the table slot of a key, or the empty slot it would go in
+     *
+     * @param key key of the pair
+     * @return slot index
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * double the size of the table and the spare table, keeping the contacts
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Contact[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Contact[keys.length];
+        spareKeys = new long[keys.length];
+        spareValues = new Contact[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * get the key of a pair of entities in the same world
+     *
+     * @param first  entity checking its collisions
+     * @param second entity it is checked against
+     * @return key of the pair
+     */
+    private static long key(Physics first, Physics second) {
+        return ((long) first.getSlot() << 32) | (second.getSlot() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * get the starting table slot for a key
+     *
+     * @param key key of the pair
+     * @return slot index before masking
+     */
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * contact between two entities as of the last full check
+     */
+    static class Contact {
+
+        /**
+         * entity that checked its collisions
+         */
+        Physics first;
+
+        /**
+         * entity it collided with or overlapped
+         */
+        Physics second;
+
+        /**
+         * side of the first entity the second entity is on, null if they only overlap
+         */
+        Side side;
+
+        /**
+         * bounds versions of both entities when the contact was found
+         */
+        int firstVersion, secondVersion;
+
+        /**
+         * prune number the contact was last found or repeated in
+         */
+        int stamp;
+
+        /**
+         * create a new empty contact, given its entities when it is put in the cache
+         */
+        private Contact() {
+        }
+    }
+}
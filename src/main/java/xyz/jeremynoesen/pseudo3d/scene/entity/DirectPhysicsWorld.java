@@ -0,0 +1,496 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * physics world that keeps its state outside the java heap, in a direct buffer or a file mapped into memory. every
+ * slot is one record holding all of its values, so the garbage collector never has to look at entity state no matter
+ * how many entities there are. a mapped world can be written to disk as a checkpoint and opened again later. buffers
+ * are limited to 2 gb, which is a little under 15 million slots
+ *
+ * @author Jeremy Noesen
+ */
+public class DirectPhysicsWorld extends PhysicsWorld implements Closeable {
+
+    /**
+     * record fields after the columns, holding the flags, layers, mask, and whether the slot is in use
+     */
+    private static final int FLAGS = COLUMNS, LAYERS = COLUMNS + 1, MASKS = COLUMNS + 2, USED = COLUMNS + 3;
+
+    /**
+     * bytes in the record of one slot
+     */
+    private static final int RECORD = (USED + 1) * 4;
+
+    /**
+     * bytes before the first record, holding the number of slots handed out and the number of columns
+     */
+    private static final int HEADER = 8;
+
+    /**
+     * most records that fit in one buffer
+     */
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER) / RECORD;
+
+    /**
+     * file the world is mapped to, null if the world is only in memory
+     */
+    private final FileChannel channel;
+
+    /**
+     * buffer holding the header and the records
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * number of records the buffer has room for
+     */
+    private int capacity;
+
+    /**
+     * number of slots that have been handed out, including released ones
+     */
+    private int size;
+
+    /**
+     * released slots waiting to be reused
+     */
+    private int[] free;
+
+    /**
+     * number of released slots
+     */
+    private int freeCount;
+
+    /**
+     * slots read from the file that no entity has been attached to yet
+     */
+    private final BitSet restored;
+
+    /**
+     * create a new empty world in a direct buffer with room for a number of entities before it has to grow
+     *
+     * @param capacity starting number of slots
+     */
+    public DirectPhysicsWorld(int capacity) {
+        super(1);
+        channel = null;
+        free = new int[0];
+        restored = new BitSet();
+        buffer = ByteBuffer.allocateDirect(bytes(Math.max(1, capacity))).order(ByteOrder.nativeOrder());
+        this.capacity = Math.max(1, capacity);
+        buffer.putInt(4, COLUMNS);
+    }
+
+    /**
+     * open a world mapped to a file, creating the file if it does not exist. a file written by an earlier world keeps
+     * every slot it had, including released ones, which are reused first. entities are attached to the slots that were
+     * in use with {@link Physics#attach(PhysicsWorld, int)}, and new entities never take them
+     *
+     * @param file     file to map
+     * @param capacity starting number of slots, the file grows past this as needed
+     * @throws IOException if the file can not be opened or was not written by a world with the same columns
+     */
+    public DirectPhysicsWorld(Path file, int capacity) throws IOException {
+        super(1);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        free = new int[0];
+        restored = new BitSet();
+        long length = channel.size();
+        if (length >= HEADER) {
+            int stored = (int) Math.min((length - HEADER) / RECORD, Integer.MAX_VALUE);
+            buffer = map(Math.max(1, stored));
+            if (buffer.getInt(4) != COLUMNS) {
+                channel.close();
+                throw new IOException("file was written by a world with different columns");
+            }
+            this.capacity = Math.max(1, stored);
+            size = buffer.getInt(0);
+            for (int i = size - 1; i >= 0; i--) {
+                if (buffer.getInt(offset(i, USED)) == 0) push(i);
+                else restored.set(i);
+            }
+            //find the released slots again, the last ones pushed are reused first, and keep the used ones for attaching
+        } else {
+            buffer = map(Math.max(1, capacity));
+            this.capacity = Math.max(1, capacity);
+            buffer.putInt(4, COLUMNS);
+        }
+        if (this.capacity < capacity) grow(capacity);
+    }
+
+    /**
+     * write the state of every slot to the mapped file, so it can be opened again from this point. does nothing if
+     * the world is not mapped to a file
+     */
+    public void checkpoint() {
+        if (channel != null) ((MappedByteBuffer) buffer).force();
+    }
+
+    /**
+     * close the mapped file. the world can not be used after this
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    /**
+     * get a slot for a new entity, reusing released slots first. all values of the slot start at 0
+     *
+     * @return slot index
+     */
+    @Override
+    public int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (size == capacity) grow((int) Math.min((long) capacity * 2, MAX_CAPACITY));
+            slot = size++;
+            buffer.putInt(0, size);
+        }
+        buffer.putInt(offset(slot, USED), 1);
+        return slot;
+    }
+
+    /**
+     * take a slot read from the file so an entity can be attached to it
+     *
+     * @param slot slot index
+     * @throws IllegalArgumentException if the slot was not in use in the file or already has an entity
+     */
+    @Override
+    public void claim(int slot) {
+        if (slot < 0 || !restored.get(slot)) {
+            throw new IllegalArgumentException("slot " + slot + " is not waiting for an entity");
+        }
+        restored.clear(slot);
+    }
+
+    /**
+     * get the first slot at or after a slot that was read from the file and has no entity attached yet
+     *
+     * @param slot slot index to start from
+     * @return slot waiting for an entity, or -1 if there are no more
+     */
+    public int nextRestored(int slot) {
+        return restored.nextSetBit(slot);
+    }
+
+    /**
+     * give back a slot that is no longer used, clearing its values
+     *
+     * @param slot slot index
+     */
+    @Override
+    void release(int slot) {
+        int start = offset(slot, 0);
+        for (int i = 0; i < RECORD; i += 4) buffer.putInt(start + i, 0);
+        restored.clear(slot);
+        push(slot);
+    }
+
+    /**
+     * get a value of a slot
+     *
+     * @param column column index
+     * @param slot   slot index
+     * @return value
+     */
+    @Override
+    public float get(int column, int slot) {
+        return buffer.getFloat(offset(slot, column));
+    }
+
+    /**
+     * set a value of a slot
+     *
+     * @param column column index
+     * @param slot   slot index
+     * @param value  new value
+     */
+    @Override
+    void set(int column, int slot, float value) {
+        buffer.putFloat(offset(slot, column), value);
+    }
+
+    /**
+     * check if a flag is set for a slot
+     *
+     * @param slot slot index
+     * @param flag flag to check
+     * @return true if the flag is set
+     */
+    @Override
+    public boolean is(int slot, int flag) {
+        return (getFlags(slot) & flag) != 0;
+    }
+
+    /**
+     * set or clear a flag for a slot
+     *
+     * @param slot  slot index
+     * @param flag  flag to change
+     * @param value true to set the flag
+     */
+    @Override
+    public void setFlag(int slot, int flag, boolean value) {
+        int flags = getFlags(slot);
+        setFlags(slot, value ? flags | flag : flags & ~flag);
+    }
+
+    /**
+     * get all flags of a slot
+     *
+     * @param slot slot index
+     * @return flags
+     */
+    @Override
+    public int getFlags(int slot) {
+        return buffer.getInt(offset(slot, FLAGS));
+    }
+
+    /**
+     * set all flags of a slot
+     *
+     * @param slot  slot index
+     * @param flags flags
+     */
+    @Override
+    public void setFlags(int slot, int flags) {
+        buffer.putInt(offset(slot, FLAGS), flags);
+    }
+
+    /**
+     * set a column to 0 for every slot
+     *
+     * @param column column index
+     */
+    @Override
+    void clear(int column) {
+        for (int i = 0; i < size; i++) buffer.putFloat(offset(i, column), 0);
+    }
+
+    /**
+     * get the collision layers of a slot
+     *
+     * @param slot slot index
+     * @return layer bits
+     */
+    @Override
+    public int getLayers(int slot) {
+        return buffer.getInt(offset(slot, LAYERS));
+    }
+
+    /**
+     * set the collision layers of a slot
+     *
+     * @param slot   slot index
+     * @param layers layer bits
+     */
+    @Override
+    public void setLayers(int slot, int layers) {
+        buffer.putInt(offset(slot, LAYERS), layers);
+    }
+
+    /**
+     * get the layers a slot collides with
+     *
+     * @param slot slot index
+     * @return mask bits
+     */
+    @Override
+    public int getMask(int slot) {
+        return buffer.getInt(offset(slot, MASKS));
+    }
+
+    /**
+     * set the layers a slot collides with
+     *
+     * @param slot slot index
+     * @param mask mask bits
+     */
+    @Override
+    public void setMask(int slot, int mask) {
+        buffer.putInt(offset(slot, MASKS), mask);
+    }
+
+    /**
+     * store the velocity and sleep state of every slot as the state at the start of the tick, read by other entities
+     * while ticking motion in parallel
+     */
+    @Override
+    public void bufferState() {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < 3; j++) set(LAST_VELOCITY_X + j, i, get(VELOCITY_X + j, i));
+            setFlag(i, LAST_SLEEPING, is(i, SLEEPING));
+        }
+    }
+
+    /**
+     * store the position of every slot as the position before the next step, so rendering can interpolate between them
+     */
+    @Override
+    public void storePositions() {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < 3; j++) set(PREVIOUS_POSITION_X + j, i, get(POSITION_X + j, i));
+        }
+    }
+
+    /**
+     * move the slots with a step one at a time, with the same math as the column passes. records keep the values of a
+     * slot together, so there are no columns to vectorize over
+     *
+     * @param vectorized ignored
+     */
+    @Override
+    void integrate(boolean vectorized) {
+        for (int i = 0; i < size; i++) {
+            float dt = get(STEP, i);
+            if (dt == 0) continue;
+            for (int axis = 0; axis < 3; axis++) {
+                float v = get(VELOCITY_X + axis, i), t = get(TERMINAL_VELOCITY_X + axis, i);
+                v = Math.min(Math.max(v + ((get(ACCELERATION_X + axis, i) + get(GRAVITY_X + axis, i)) * dt),
+                        Math.min(v, -t)), Math.max(v, t));
+                float d = get(DRAG_X + axis, i) * get(axis == 1 ? WIDTH : HEIGHT, i) *
+                        get(axis == 2 ? WIDTH : DEPTH, i) * dt * Math.abs(v);
+                v = Math.min(v + d, 0) + Math.max(v - d, 0);
+                set(VELOCITY_X + axis, i, v);
+                set(POSITION_X + axis, i, get(POSITION_X + axis, i) + v * dt);
+            }
+        }
+    }
+
+    /**
+     * find every slot whose bounds overlap or touch the bounds of a slot, checking slots one at a time
+     *
+     * @param slot       slot to check against
+     * @param results    array to put the overlapping slots in, at least as long as the number of slots
+     * @param vectorized ignored
+     * @return number of overlapping slots
+     */
+    @Override
+    public int overlapping(int slot, int[] results, boolean vectorized) {
+        float minX = get(POSITION_X, slot) - (get(WIDTH, slot) / 2.0f);
+        float maxX = get(POSITION_X, slot) + (get(WIDTH, slot) / 2.0f);
+        float minY = get(POSITION_Y, slot) - (get(HEIGHT, slot) / 2.0f);
+        float maxY = get(POSITION_Y, slot) + (get(HEIGHT, slot) / 2.0f);
+        float minZ = get(POSITION_Z, slot) - (get(DEPTH, slot) / 2.0f);
+        float maxZ = get(POSITION_Z, slot) + (get(DEPTH, slot) / 2.0f);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            float x = get(POSITION_X, i), w = get(WIDTH, i) / 2.0f;
+            if (minX > x + w || maxX < x - w) continue;
+            float y = get(POSITION_Y, i), h = get(HEIGHT, i) / 2.0f;
+            if (minY > y + h || maxY < y - h) continue;
+            float z = get(POSITION_Z, i), d = get(DEPTH, i) / 2.0f;
+            if (minZ > z + d || maxZ < z - d) continue;
+            results[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+     * get the number of slots handed out so far, including released ones. every used slot is below this
+     *
+     * @return number of slots
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * get the number of slots in use
+     *
+     * @return number of entities in the world
+     */
+    @Override
+    public int getCount() {
+        return size - freeCount;
+    }
+
+    /**
+     * make room for more records, keeping the records already in the buffer
+     *
+     * @param capacity new number of slots
+     * @throws IllegalStateException if the buffer is already as big as it can be
+     */
+    private void grow(int capacity) {
+        if (capacity <= this.capacity) throw new IllegalStateException("too many slots for one buffer");
+        int bytes = bytes(capacity);
+        if (channel != null) {
+            try {
+                buffer = map(capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            //mapping more of the file keeps what is already written, records only ever get added to the end
+        } else {
+            ByteBuffer grown = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+            ByteBuffer old = buffer.duplicate();
+            old.position(0).limit(HEADER + size * RECORD);
+            grown.put(old);
+            buffer = grown;
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * map the start of the file holding a number of records
+     *
+     * @param capacity number of records
+     * @return mapped buffer
+     * @throws IOException if the file can not be mapped
+     */
+    private ByteBuffer map(int capacity) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes(capacity)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * add a slot to the released slots
+     *
+     * @param slot slot index
+     */
+    private void push(int slot) {
+        if (freeCount == free.length) free = Arrays.copyOf(free, Math.max(4, freeCount * 2));
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * get the byte offset of a value of a slot
+     *
+     * @param slot  slot index
+     * @param field column or record field index
+     * @return byte offset in the buffer
+     */
+    private static int offset(int slot, int field) {
+        return HEADER + slot * RECORD + field * 4;
+    }
+
+    /**
+     * get the bytes needed for a number of records
+     *
+     * @param capacity number of records
+     * @return bytes including the header
+     * @throws IllegalStateException if the records do not fit in one buffer
+     */
+    private static int bytes(int capacity) {
+        if (capacity > MAX_CAPACITY) throw new IllegalStateException("too many slots for one buffer");
+        return HEADER + capacity * RECORD;
+    }
+}
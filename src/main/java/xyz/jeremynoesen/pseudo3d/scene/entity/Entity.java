@@ -51,6 +51,11 @@ public class Entity extends Physics {
      */
     boolean physics;
     
+    /**
+     * time the entity was skipped for by level of detail scheduling since it last ticked, added to its next tick
+     */
+    float skipped;
+    
     /**
      * constructs a new default entity
      */
@@ -81,6 +86,7 @@ public class Entity extends Physics {
         this.enabled = entity.enabled;
         this.visible = entity.visible;
         this.physics = entity.physics;
+        this.skipped = entity.skipped;
     }
     
     /**
@@ -149,8 +155,10 @@ public class Entity extends Physics {
     public Entity setScene(Scene scene) {
         if (scene != null) {
             super.setEntities(scene.getEntities());
+            setWorld(scene.getWorld());
         } else {
             super.setEntities(null);
+            setWorld(new PhysicsWorld(1));
         }
         this.scene = scene;
         return this;
@@ -191,7 +199,28 @@ public class Entity extends Physics {
      */
     @Override
     public void tickMotion(float deltaTime) {
-        super.tickMotion(deltaTime * speed);
+        super.tickMotion(step(deltaTime));
+    }
+    
+    /**
+     * update the motion of the entity using the state other entities had at the start of the tick
+     *
+     * @param deltaTime time elapsed to use in calculation
+     */
+    @Override
+    public void tickBufferedMotion(float deltaTime) {
+        super.tickBufferedMotion(step(deltaTime));
+    }
+    
+    /**
+     * get the time step the entity moves by in a tick, including any time it was skipped for, scaled by its speed
+     *
+     * @param deltaTime time elapsed in the tick
+     * @return time step of the entity
+     */
+    @Override
+    float step(float deltaTime) {
+        return (deltaTime + skipped) * speed;
     }
     
     /**
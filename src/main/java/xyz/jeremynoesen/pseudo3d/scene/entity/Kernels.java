@@ -0,0 +1,143 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * batched passes over the columns of a world, run for many entities at once instead of one entity at a time. entities
+ * with nothing touching them have their motion ticked by one pass over the world, and overlap checks without a
+ * broadphase test every slot in one pass
+ *
+ * @author Jeremy Noesen
+ */
+public class Kernels {
+
+    /**
+     * entities moved by the last batched motion pass
+     */
+    private Physics[] batched;
+
+    /**
+     * number of entities moved by the last batched motion pass
+     */
+    private int batchedCount;
+
+    /**
+     * entity of each slot of the indexed world, null for slots of entities not indexed
+     */
+    private Physics[] slots;
+
+    /**
+     * world the slots were indexed for
+     */
+    private PhysicsWorld world;
+
+    /**
+     * slots found by the last overlap pass
+     */
+    private int[] hits;
+
+    /**
+     * whether to use the branch free passes
+     */
+    private boolean vectorized;
+
+    /**
+     * create new batched passes, vectorized if the jit vectorizes loops
+     */
+    public Kernels() {
+        batched = new Physics[16];
+        slots = new Physics[16];
+        hits = new int[16];
+        vectorized = PhysicsWorld.VECTORIZED;
+    }
+
+    /**
+     * tick the motion of every entity with nothing touching it in one pass over the world, the same as ticking each
+     * of them on its own. entities that can not be batched are added to a list to be ticked as usual
+     *
+     * @param world     world of the entities
+     * @param entities  kinematic entities to tick
+     * @param deltaTime time elapsed to use in calculation
+     * @param rest      list to add the entities that were not ticked to
+     * @param <T>       type of entity
+     */
+    public <T extends Physics> void tickMotion(PhysicsWorld world, List<T> entities, float deltaTime,
+                                               Collection<? super T> rest) {
+        world.clear(PhysicsWorld.STEP);
+        batchedCount = 0;
+        for (T physics : entities) {
+            if (physics.getWorld() == world && physics.isFree()) {
+                world.set(PhysicsWorld.STEP, physics.getSlot(), physics.step(deltaTime));
+                if (batchedCount == batched.length) batched = Arrays.copyOf(batched, batchedCount * 2);
+                batched[batchedCount++] = physics;
+            } else {
+                rest.add(physics);
+            }
+        }
+        //give every free entity its step, every other slot keeps a step of 0 and does not move
+
+        if (batchedCount == 0) return;
+        world.integrate(vectorized);
+        for (int i = 0; i < batchedCount; i++) {
+            batched[i].syncPosition();
+            batched[i] = null;
+        }
+        //move the bounds of the entities to their new positions
+    }
+
+    /**
+     * index the entities of a world by slot, so overlap passes can find the entity of each slot they hit. has to be
+     * called again when entities are added or removed
+     *
+     * @param world    world of the entities
+     * @param entities entities to index
+     */
+    public void index(PhysicsWorld world, Collection<? extends Physics> entities) {
+        this.world = world;
+        int size = world.getSize();
+        if (slots.length < size) slots = new Physics[Math.max(size, slots.length * 2)];
+        else Arrays.fill(slots, null);
+        for (Physics physics : entities) {
+            if (physics.getWorld() == world) slots[physics.getSlot()] = physics;
+        }
+    }
+
+    /**
+     * find every indexed entity whose bounds overlap or touch the bounds of an entity, in one pass over its world
+     *
+     * @param physics entity to check against
+     * @param results collection to add the overlapping entities to, including the entity itself
+     */
+    public void overlapping(Physics physics, Collection<? super Physics> results) {
+        if (physics.getWorld() != world) return;
+        if (hits.length < world.getSize()) hits = new int[world.getSize() * 2];
+        int count = world.overlapping(physics.getSlot(), hits, vectorized);
+        for (int i = 0; i < count; i++) {
+            Physics hit = hits[i] < slots.length ? slots[hits[i]] : null;
+            if (hit != null) results.add(hit);
+        }
+        //slots added since the entities were indexed have no entity to add
+    }
+
+    /**
+     * check if the branch free passes are used
+     *
+     * @return true if vectorized
+     */
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    /**
+     * set whether to use the branch free passes, which are faster when the jit vectorizes loops, or the passes that
+     * only visit the slots they need
+     *
+     * @param vectorized true to use the branch free passes
+     */
+    public Kernels setVectorized(boolean vectorized) {
+        this.vectorized = vectorized;
+        return this;
+    }
+}
@@ -0,0 +1,213 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import xyz.jeremynoesen.pseudo3d.scene.render.Camera;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * physics level of detail, ticking entities less often the further they are from the camera. entities within the near
+ * distance tick every step, entities within the far distance tick every few steps with the time they skipped added to
+ * their step, and entities past the far distance tick even less often or are frozen. distances are fractions of the
+ * camera view distance
+ *
+ * @author Jeremy Noesen
+ */
+public class LevelOfDetail {
+
+    /**
+     * fraction of the view distance entities tick every step within
+     */
+    private float near;
+
+    /**
+     * fraction of the view distance entities tick every mid interval within
+     */
+    private float far;
+
+    /**
+     * steps between ticks of entities between the near and far distance
+     */
+    private int midInterval;
+
+    /**
+     * steps between ticks of entities past the far distance, 0 to freeze them
+     */
+    private int farInterval;
+
+    /**
+     * number of steps scheduled so far
+     */
+    private int steps;
+
+    /**
+     * create a new level of detail, ticking every step within a quarter of the view distance, every 4 steps within the
+     * view distance, and freezing entities past it
+     */
+    public LevelOfDetail() {
+        near = 0.25f;
+        far = 1;
+        midInterval = 4;
+        farInterval = 0;
+    }
+
+    /**
+     * copy constructor for levels of detail
+     *
+     * @param levelOfDetail level of detail to copy
+     */
+    public LevelOfDetail(LevelOfDetail levelOfDetail) {
+        near = levelOfDetail.near;
+        far = levelOfDetail.far;
+        midInterval = levelOfDetail.midInterval;
+        farInterval = levelOfDetail.farInterval;
+    }
+
+    /**
+     * find the entities that tick this step. skipped entities keep the time they skipped for their next tick, except
+     * frozen ones, for which time stands still. entities are spread over the steps of their interval by slot, so they
+     * do not all tick on the same step
+     *
+     * @param entities  kinematic entities of the scene
+     * @param camera    camera to measure distances from
+     * @param deltaTime time of the step
+     * @param due       collection to add the entities that tick this step to
+     * @param <T>       type of entity
+     */
+    public <T extends Entity> void schedule(List<T> entities, Camera camera, float deltaTime,
+                                            Collection<? super T> due) {
+        steps++;
+        Vector position = camera.getPosition();
+        float nearDistance = near * camera.getViewDistance(), farDistance = far * camera.getViewDistance();
+        float nearSquared = nearDistance * nearDistance, farSquared = farDistance * farDistance;
+        for (T entity : entities) {
+            float x = entity.getX() - position.getX();
+            float y = entity.getY() - position.getY();
+            float z = entity.getZ() - position.getZ();
+            float distance = x * x + y * y + z * z;
+            int interval = distance <= nearSquared ? 1 : distance <= farSquared ? midInterval : farInterval;
+            //compare squared distances to skip the square root
+
+            if (interval == 1 || (interval > 1 && Integer.remainderUnsigned(steps + entity.getSlot(), interval) == 0)) {
+                due.add(entity);
+            } else if (interval > 1) {
+                entity.skipped += deltaTime;
+            }
+            //frozen entities do not build up skipped time, so they do not jump when they start ticking again
+        }
+    }
+
+    /**
+     * clear the skipped time of the entities that ticked, called once their motion is ticked
+     *
+     * @param entities entities that ticked this step
+     */
+    public void reset(List<? extends Entity> entities) {
+        for (Entity entity : entities) entity.skipped = 0;
+    }
+
+    /**
+     * get the fraction of the view distance entities tick every step within
+     *
+     * @return near distance fraction
+     */
+    public float getNear() {
+        return near;
+    }
+
+    /**
+     * set the fraction of the view distance entities tick every step within
+     *
+     * @param near near distance fraction
+     */
+    public LevelOfDetail setNear(float near) {
+        this.near = near;
+        return this;
+    }
+
+    /**
+     * get the fraction of the view distance entities tick every mid interval within
+     *
+     * @return far distance fraction
+     */
+    public float getFar() {
+        return far;
+    }
+
+    /**
+     * set the fraction of the view distance entities tick every mid interval within
+     *
+     * @param far far distance fraction
+     */
+    public LevelOfDetail setFar(float far) {
+        this.far = far;
+        return this;
+    }
+
+    /**
+     * get the steps between ticks of entities between the near and far distance
+     *
+     * @return mid interval
+     */
+    public int getMidInterval() {
+        return midInterval;
+    }
+
+    /**
+     * set the steps between ticks of entities between the near and far distance
+     *
+     * @param midInterval mid interval, at least 1
+     */
+    public LevelOfDetail setMidInterval(int midInterval) {
+        this.midInterval = Math.max(1, midInterval);
+        return this;
+    }
+
+    /**
+     * get the steps between ticks of entities past the far distance
+     *
+     * @return far interval, 0 if they are frozen
+     */
+    public int getFarInterval() {
+        return farInterval;
+    }
+
+    /**
+     * set the steps between ticks of entities past the far distance
+     *
+     * @param farInterval far interval, 0 to freeze them
+     */
+    public LevelOfDetail setFarInterval(int farInterval) {
+        this.farInterval = Math.max(0, farInterval);
+        return this;
+    }
+
+    /**
+     * check if this level of detail is identical to another
+     *
+     * @param o object to check
+     * @return true if the levels of detail have the same settings
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LevelOfDetail that = (LevelOfDetail) o;
+        return Float.compare(that.near, near) == 0 &&
+                Float.compare(that.far, far) == 0 &&
+                midInterval == that.midInterval &&
+                farInterval == that.farInterval;
+    }
+
+    /**
+     * get the hash code of the settings
+     *
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(near, far, midInterval, farInterval);
+    }
+}
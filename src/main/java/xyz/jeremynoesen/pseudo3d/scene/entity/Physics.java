@@ -1,125 +1,155 @@
 package xyz.jeremynoesen.pseudo3d.scene.entity;
 
 import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+import xyz.jeremynoesen.pseudo3d.scene.util.MutableVector;
 import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
 
 import java.util.*;
 
+import static xyz.jeremynoesen.pseudo3d.scene.entity.PhysicsWorld.*;
+
 /**
- * axis-aligned bounding box physics entity
+ * axis-aligned bounding box physics entity. the physics state is stored in a slot of a physics world, and the vector
+ * getters and setters read and write that slot
  *
  * @author Jeremy Noesen
  */
 public abstract class Physics extends Box {
 
+    /**
+     * all sides, cached to avoid copying the values every check
+     */
+    private static final Side[] SIDES = Side.values();
+
+    /**
+     * shared list for sides and entities without contacts
+     */
+    private static final Physics[] NONE = new Physics[0];
+
+    /**
+     * distance a swept entity is left overlapping what it hit, so the collision tick sees the overlap
+     */
+    private static final float SWEEP_OVERLAP = 0.0001f;
+
     /**
      * entities this entity is in a scene with
      */
     private LinkedList<Physics> entities;
 
     /**
-     * gravity applied to the entity (meters / second ^ 2)
+     * world storing the physics state of the entity
      */
-    private Vector gravity;
+    private PhysicsWorld world;
 
     /**
-     * position of entity (meters)
+     * slot of the entity in its world
      */
-    private Vector position;
+    private int slot;
 
     /**
-     * velocity of entity, or rate of change of position (meters / second)
+     * entities colliding with this one, indexed by side. only the first entries up to the count of each side are used
      */
-    private Vector velocity;
+    private final Physics[][] collidingEntities;
 
     /**
-     * +/- terminal velocity of gravity acceleration of entity (meters / second)
+     * number of entities colliding on each side
      */
-    private Vector terminalVelocity;
+    private final int[] collidingCounts;
 
     /**
-     * acceleration of entity, or rate of change of velocity (meters / second ^ 2)
+     * bit per side that has a colliding entity, in side order
      */
-    private Vector acceleration;
+    private int collidingSides;
 
     /**
-     * coefficient of drag per axis
+     * entities overlapping this one, only the first entries up to the count are used
      */
-    private Vector drag;
+    private Physics[] overlappingEntities;
 
     /**
-     * roughness of entity per axis, used for friction
+     * number of entities overlapping this one
      */
-    private Vector roughness;
+    private int overlappingCount;
 
     /**
-     * if an entity is solid, allowing collision
+     * entities touching this one at the end of the current tick, and at the end of the tick before
      */
-    private boolean solid;
+    private Set<Physics> touching, lastTouching;
 
     /**
-     * list of entities colliding with per side
+     * listeners for changes in the entities touching this one
      */
-    private final HashMap<Side, HashSet<Physics>> collidingEntities;
+    private final HashSet<ContactListener> contactListeners;
 
     /**
-     * list of entities overlapping this one
+     * speed the entity has to stay under to fall asleep, 0 to never sleep (meters / second)
      */
-    private final HashSet<Physics> overlappingEntities;
+    private float sleepThreshold;
 
     /**
-     * entity's collision status
+     * number of ticks the entity has to rest for before it falls asleep
      */
-    private boolean colliding;
+    private int sleepDelay;
 
     /**
-     * entity's overlapping status
+     * number of ticks the entity has been resting for
      */
-    private boolean overlapping;
+    private int restingTicks;
 
     /**
-     * whether this entity can have motion or not
+     * mass stacked behind the entity on each side, cached by the scene once per tick
      */
-    private boolean kinematic;
+    final float[] stackedMasses;
 
     /**
-     * whether this entity can be pushed by other entities
+     * stamp of the cache each stacked mass was found for
      */
-    private final boolean[] pushable;
+    final int[] stackedStamps;
 
     /**
-     * mass of an entity used for calculations, such as momentum conservation
+     * stacked mass cache the entity was last cached by
      */
-    private float mass;
+    Stacks stacks;
 
     /**
-     * whether the entity can update or not
+     * stamp of the last walk that visited the entity while finding stacked masses
      */
-    private boolean updatable;
+    int visitedStamp;
 
     /**
      * create a new aabb entity with default values
      */
     public Physics() {
         super();
-        gravity = new Vector(0, -9.81f, 0);
-        position = new Vector();
-        velocity = new Vector();
-        acceleration = new Vector();
-        terminalVelocity = new Vector(20, 20, 20);
-        drag = new Vector(0.5f, 0.5f, 0.5f);
-        roughness = new Vector(5, 5, 5);
+        world = new PhysicsWorld(1);
+        slot = world.allocate();
+        set(GRAVITY_Y, -9.81f);
+        set(TERMINAL_VELOCITY_X, 20);
+        set(TERMINAL_VELOCITY_Y, 20);
+        set(TERMINAL_VELOCITY_Z, 20);
+        set(DRAG_X, 0.5f);
+        set(DRAG_Y, 0.5f);
+        set(DRAG_Z, 0.5f);
+        set(ROUGHNESS_X, 5);
+        set(ROUGHNESS_Y, 5);
+        set(ROUGHNESS_Z, 5);
+        set(MASS, 1);
+        flag(SOLID | KINEMATIC | UPDATABLE | PUSHABLE_X | PUSHABLE_Y | PUSHABLE_Z, true);
+        world.setLayers(slot, 1);
+        world.setMask(slot, -1);
         entities = null;
-        solid = true;
-        colliding = false;
-        overlapping = false;
-        kinematic = true;
-        pushable = new boolean[]{true, true, true};
-        updatable = true;
-        mass = 1;
-        collidingEntities = new HashMap<>();
-        overlappingEntities = new HashSet<>();
-        for (Side s : Side.values()) collidingEntities.put(s, new HashSet<>());
+        sleepThreshold = 0.1f;
+        sleepDelay = 60;
+        restingTicks = 0;
+        stackedMasses = new float[6];
+        stackedStamps = new int[6];
+        collidingEntities = new Physics[6][];
+        collidingCounts = new int[6];
+        overlappingEntities = NONE;
+        touching = Collections.newSetFromMap(new IdentityHashMap<>());
+        lastTouching = Collections.newSetFromMap(new IdentityHashMap<>());
+        contactListeners = new HashSet<>();
+        Arrays.fill(collidingEntities, NONE);
     }
 
     /**
@@ -129,162 +159,203 @@ public abstract class Physics extends Box {
      */
     public Physics(Physics physics) {
         super(physics);
-        gravity = physics.gravity;
-        position = physics.position;
-        velocity = physics.velocity;
-        acceleration = physics.acceleration;
-        terminalVelocity = physics.terminalVelocity;
-        drag = physics.drag;
-        roughness = physics.roughness;
-        solid = physics.solid;
-        colliding = physics.colliding;
-        overlapping = physics.overlapping;
-        mass = physics.mass;
-        kinematic = physics.kinematic;
-        pushable = physics.pushable;
-        updatable = physics.updatable;
-        collidingEntities = new HashMap<>();
-        overlappingEntities = new HashSet<>(physics.overlappingEntities);
+        world = new PhysicsWorld(1);
+        slot = world.allocate();
+        physics.world.copy(physics.slot, world, slot);
+        sleepThreshold = physics.sleepThreshold;
+        sleepDelay = physics.sleepDelay;
+        restingTicks = physics.restingTicks;
+        stackedMasses = new float[6];
+        stackedStamps = new int[6];
+        collidingEntities = new Physics[6][];
+        collidingCounts = physics.collidingCounts.clone();
+        collidingSides = physics.collidingSides;
+        overlappingEntities = Arrays.copyOf(physics.overlappingEntities, physics.overlappingCount);
+        overlappingCount = physics.overlappingCount;
+        touching = Collections.newSetFromMap(new IdentityHashMap<>());
+        lastTouching = Collections.newSetFromMap(new IdentityHashMap<>());
+        touching.addAll(physics.touching);
+        contactListeners = new HashSet<>(physics.contactListeners);
         entities = physics.entities;
-        for (Side s : Side.values()) collidingEntities.put(s, new HashSet<>(physics.collidingEntities.get(s)));
+        for (int i = 0; i < 6; i++) {
+            collidingEntities[i] = Arrays.copyOf(physics.collidingEntities[i], physics.collidingCounts[i]);
+        }
     }
 
     /**
-     * update the motion of the entity
+     * update the motion of the entity, pushing the entities it moves into
      *
      * @param deltaTime time elapsed to use in calculation
      */
     public void tickMotion(float deltaTime) {
-        if (!updatable || !kinematic) return;
+        tickMotion(deltaTime, false);
+    }
+
+    /**
+     * update the motion of the entity using the state other entities had at the start of the tick, only changing this
+     * entity. entities pushed by this one take their share of the push in their own tick, so all entities can tick at
+     * the same time in any order. {@link #bufferState()} has to be called on every entity before ticking
+     *
+     * @param deltaTime time elapsed to use in calculation
+     */
+    public void tickBufferedMotion(float deltaTime) {
+        tickMotion(deltaTime, true);
+    }
+
+    /**
+     * store the state other entities read during a buffered motion tick
+     */
+    public void bufferState() {
+        set(LAST_VELOCITY_X, get(VELOCITY_X));
+        set(LAST_VELOCITY_Y, get(VELOCITY_Y));
+        set(LAST_VELOCITY_Z, get(VELOCITY_Z));
+        flag(LAST_SLEEPING, is(SLEEPING));
+    }
 
-        float ax = acceleration.getX() + gravity.getX(), ay = acceleration.getY() + gravity.getY(),
-                az = acceleration.getZ() + gravity.getZ();
+    /**
+     * update the motion of the entity
+     *
+     * @param deltaTime time elapsed to use in calculation
+     * @param buffered  whether to read the buffered state of other entities instead of pushing them directly
+     */
+    private void tickMotion(float deltaTime, boolean buffered) {
+        if (!is(UPDATABLE) || !is(KINEMATIC)) return;
+        if (is(SLEEPING)) {
+            if (!buffered || !isPushed(deltaTime)) return;
+            wake();
+        }
+        //sleeping entities only tick if something pushed them, which buffered ticks check for themselves
 
-        float vx = velocity.getX(), vy = velocity.getY(), vz = velocity.getZ();
+        float ax = get(ACCELERATION_X) + get(GRAVITY_X), ay = get(ACCELERATION_Y) + get(GRAVITY_Y),
+                az = get(ACCELERATION_Z) + get(GRAVITY_Z);
 
-        if (vx > -terminalVelocity.getX() && ax < 0)
-            vx = Math.max(vx + (ax * deltaTime), -terminalVelocity.getX());
-        else if (vx < terminalVelocity.getX() && ax > 0)
-            vx = Math.min(vx + (ax * deltaTime), terminalVelocity.getX());
+        float vx = get(VELOCITY_X), vy = get(VELOCITY_Y), vz = get(VELOCITY_Z);
+        float tx = get(TERMINAL_VELOCITY_X), ty = get(TERMINAL_VELOCITY_Y), tz = get(TERMINAL_VELOCITY_Z);
 
-        if (vy > -terminalVelocity.getY() && ay < 0)
-            vy = Math.max(vy + (ay * deltaTime), -terminalVelocity.getY());
-        else if (vy < terminalVelocity.getY() && ay > 0)
-            vy = Math.min(vy + (ay * deltaTime), terminalVelocity.getY());
+        if (vx > -tx && ax < 0)
+            vx = Math.max(vx + (ax * deltaTime), -tx);
+        else if (vx < tx && ax > 0)
+            vx = Math.min(vx + (ax * deltaTime), tx);
 
-        if (vz > -terminalVelocity.getZ() && az < 0)
-            vz = Math.max(vz + (az * deltaTime), -terminalVelocity.getZ());
-        else if (vz < terminalVelocity.getZ() && az > 0)
-            vz = Math.min(vz + (az * deltaTime), terminalVelocity.getZ());
+        if (vy > -ty && ay < 0)
+            vy = Math.max(vy + (ay * deltaTime), -ty);
+        else if (vy < ty && ay > 0)
+            vy = Math.min(vy + (ay * deltaTime), ty);
+
+        if (vz > -tz && az < 0)
+            vz = Math.max(vz + (az * deltaTime), -tz);
+        else if (vz < tz && az > 0)
+            vz = Math.min(vz + (az * deltaTime), tz);
         //apply acceleration and gravity if not exceeding terminal velocity
 
+        float mass = get(MASS);
         float totalMassX = 0, totalMassY = 0, totalMassZ = 0;
         float fx = 0, fy = 0, fz = 0;
 
-        if (colliding) {
-            if ((collidesOn(Side.LEFT) || collidesOn(Side.RIGHT)) && vx != 0) {
-                Queue<Physics> current = new ArrayDeque<>();
-                Set<Physics> visited = new HashSet<>();
-                current.add(this);
-                while (!current.isEmpty()) {
-                    Physics physics = current.poll();
-                    if (!visited.contains(physics)) {
-                        totalMassX += physics.mass;
-                        current.addAll(physics.getCollidingEntities(vx > 0 ? Side.LEFT : Side.RIGHT));
-                        visited.add(physics);
-                    }
-                }
-            }
+        if (collidingSides != 0) {
+            if ((collidesOn(Side.LEFT) || collidesOn(Side.RIGHT)) && vx != 0)
+                totalMassX = stackedMass(vx > 0 ? Side.LEFT : Side.RIGHT);
+            if ((collidesOn(Side.BOTTOM) || collidesOn(Side.TOP)) && vy != 0)
+                totalMassY = stackedMass(vy > 0 ? Side.BOTTOM : Side.TOP);
+            if ((collidesOn(Side.BACK) || collidesOn(Side.FRONT)) && vz != 0)
+                totalMassZ = stackedMass(vz > 0 ? Side.BACK : Side.FRONT);
             //sum masses for stacked entities
 
-            if ((collidesOn(Side.BOTTOM) || collidesOn(Side.TOP)) && vy != 0) {
-                Queue<Physics> current = new ArrayDeque<>();
-                Set<Physics> visited = new HashSet<>();
-                current.add(this);
-                while (!current.isEmpty()) {
-                    Physics physics = current.poll();
-                    if (!visited.contains(physics)) {
-                        totalMassY += physics.mass;
-                        current.addAll(physics.getCollidingEntities(vy > 0 ? Side.BOTTOM : Side.TOP));
-                        visited.add(physics);
-                    }
-                }
-            }
-
-            if ((collidesOn(Side.BACK) || collidesOn(Side.FRONT)) && vz != 0) {
-                Queue<Physics> current = new ArrayDeque<>();
-                Set<Physics> visited = new HashSet<>();
-                current.add(this);
-                while (!current.isEmpty()) {
-                    Physics physics = current.poll();
-                    if (!visited.contains(physics)) {
-                        totalMassZ += physics.mass;
-                        current.addAll(physics.getCollidingEntities(vz > 0 ? Side.BACK : Side.FRONT));
-                        visited.add(physics);
-                    }
-                }
-            }
+            int velocity = buffered ? LAST_VELOCITY_X : VELOCITY_X;
+            int sleeping = buffered ? LAST_SLEEPING : SLEEPING;
+            //read the state other entities had at the start of the tick if buffered
 
             int xCount = 0, yCount = 0, zCount = 0;
-            for (Side side : Side.values()) {
-                for (Physics physics : collidingEntities.get(side)) {
+            for (Side side : SIDES) {
+                Physics[] list = collidingEntities[side.ordinal()];
+                for (int i = 0, n = collidingCounts[side.ordinal()]; i < n; i++) {
+                    Physics physics = list[i];
+
+                    float otherMass = physics.get(MASS);
+                    boolean asleep = physics.is(sleeping);
 
                     if ((side == Side.LEFT && vx < 0) || (side == Side.RIGHT && vx > 0)) {
                         //check if colliding and moving towards a side
 
-                        fy += physics.roughness.getY() * Math.abs(vx);
+                        fy += physics.get(ROUGHNESS_Y) * Math.abs(vx);
                         yCount++;
-                        fz += physics.roughness.getZ() * Math.abs(vx);
+                        fz += physics.get(ROUGHNESS_Z) * Math.abs(vx);
                         zCount++;
                         //sum frictions in other axes
 
-                        if (physics.updatable) {
-                            if (physics.kinematic && physics.pushable[0]) {
-                                float sum = mass + physics.mass;
-                                float diff = mass - physics.mass;
+                        if (physics.is(UPDATABLE)) {
+                            float v2 = physics.get(velocity);
+                            if (physics.is(KINEMATIC) && physics.is(PUSHABLE_X) && !holds(asleep, vx - v2,
+                                    physics.sleepThreshold, get(GRAVITY_X), deltaTime)) {
+                                float sum = mass + otherMass;
+                                float diff = mass - otherMass;
                                 float v1 = vx;
-                                float v2 = physics.velocity.getX();
-                                vx = ((diff / sum) * v1) + ((2 * physics.mass / sum) * v2);
-                                physics.velocity = physics.velocity.setX(((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                vx = ((diff / sum) * v1) + ((2 * otherMass / sum) * v2);
+                                if (!buffered) {
+                                    physics.wake();
+                                    physics.set(VELOCITY_X, ((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                }
                             } else vx = 0;
                         }
-                        //calculate conservation of momentum if entity is able to
+                        //calculate conservation of momentum if entity is able to, sleeping entities only move if
+                        //pushed harder than a tick of gravity. buffered ticks leave the other entity to push itself
+
+                    } else if (buffered && (side == Side.LEFT || side == Side.RIGHT) && is(PUSHABLE_X) &&
+                            approaches(physics, side)) {
+                        vx = push(physics, 0, vx, deltaTime);
+                        //only the other entity is moving into this one, so take this entity's share of its push
 
                     } else if ((side == Side.BOTTOM && vy < 0) || (side == Side.TOP && vy > 0)) {
 
-                        fx += physics.roughness.getX() * Math.abs(vy);
+                        fx += physics.get(ROUGHNESS_X) * Math.abs(vy);
                         xCount++;
-                        fz += physics.roughness.getZ() * Math.abs(vy);
+                        fz += physics.get(ROUGHNESS_Z) * Math.abs(vy);
                         zCount++;
 
-                        if (physics.updatable) {
-                            if (physics.kinematic && physics.pushable[1]) {
-                                float sum = mass + physics.mass;
-                                float diff = mass - physics.mass;
+                        if (physics.is(UPDATABLE)) {
+                            float v2 = physics.get(velocity + 1);
+                            if (physics.is(KINEMATIC) && physics.is(PUSHABLE_Y) && !holds(asleep, vy - v2,
+                                    physics.sleepThreshold, get(GRAVITY_Y), deltaTime)) {
+                                float sum = mass + otherMass;
+                                float diff = mass - otherMass;
                                 float v1 = vy;
-                                float v2 = physics.velocity.getY();
-                                vy = ((diff / sum) * v1) + ((2 * physics.mass / sum) * v2);
-                                physics.velocity = physics.velocity.setY(((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                vy = ((diff / sum) * v1) + ((2 * otherMass / sum) * v2);
+                                if (!buffered) {
+                                    physics.wake();
+                                    physics.set(VELOCITY_Y, ((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                }
                             } else vy = 0;
                         }
 
+                    } else if (buffered && (side == Side.BOTTOM || side == Side.TOP) && is(PUSHABLE_Y) &&
+                            approaches(physics, side)) {
+                        vy = push(physics, 1, vy, deltaTime);
+
                     } else if ((side == Side.BACK && vz < 0) || (side == Side.FRONT && vz > 0)) {
 
-                        fx += physics.roughness.getX() * Math.abs(vz);
+                        fx += physics.get(ROUGHNESS_X) * Math.abs(vz);
                         xCount++;
-                        fy += physics.roughness.getY() * Math.abs(vz);
+                        fy += physics.get(ROUGHNESS_Y) * Math.abs(vz);
                         yCount++;
 
-                        if (physics.updatable) {
-                            if (physics.kinematic && physics.pushable[2]) {
-                                float sum = mass + physics.mass;
-                                float diff = mass - physics.mass;
+                        if (physics.is(UPDATABLE)) {
+                            float v2 = physics.get(velocity + 2);
+                            if (physics.is(KINEMATIC) && physics.is(PUSHABLE_Z) && !holds(asleep, vz - v2,
+                                    physics.sleepThreshold, get(GRAVITY_Z), deltaTime)) {
+                                float sum = mass + otherMass;
+                                float diff = mass - otherMass;
                                 float v1 = vz;
-                                float v2 = physics.velocity.getZ();
-                                vz = ((diff / sum) * v1) + ((2 * physics.mass / sum) * v2);
-                                physics.velocity = physics.velocity.setZ(((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                vz = ((diff / sum) * v1) + ((2 * otherMass / sum) * v2);
+                                if (!buffered) {
+                                    physics.wake();
+                                    physics.set(VELOCITY_Z, ((-diff / sum) * v2) + ((2 * mass / sum) * v1));
+                                }
                             } else vz = 0;
                         }
+
+                    } else if (buffered && (side == Side.BACK || side == Side.FRONT) && is(PUSHABLE_Z) &&
+                            approaches(physics, side)) {
+                        vz = push(physics, 2, vz, deltaTime);
                     }
                 }
             }
@@ -294,16 +365,17 @@ public abstract class Physics extends Box {
             float finalMassZ = (totalMassX + totalMassY) == 0 ? mass : totalMassX + totalMassY;
             //convert masses to work with friction
 
-            if (xCount > 0) fx = ((fx + roughness.getX()) / (xCount + 1)) * finalMassX * deltaTime;
-            if (yCount > 0) fy = ((fy + roughness.getY()) / (yCount + 1)) * finalMassY * deltaTime;
-            if (zCount > 0) fz = ((fz + roughness.getZ()) / (zCount + 1)) * finalMassZ * deltaTime;
+            if (xCount > 0) fx = ((fx + get(ROUGHNESS_X)) / (xCount + 1)) * finalMassX * deltaTime;
+            if (yCount > 0) fy = ((fy + get(ROUGHNESS_Y)) / (yCount + 1)) * finalMassY * deltaTime;
+            if (zCount > 0) fz = ((fz + get(ROUGHNESS_Z)) / (zCount + 1)) * finalMassZ * deltaTime;
             //calculate average friction per axis that has friction applied
         }
         //apply friction from colliding entities
 
-        float dx = drag.getX() * getHeight() * getDepth() * deltaTime * Math.abs(vx);
-        float dy = drag.getY() * getWidth() * getDepth() * deltaTime * Math.abs(vy);
-        float dz = drag.getZ() * getHeight() * getWidth() * deltaTime * Math.abs(vz);
+        float width = get(WIDTH), height = get(HEIGHT), depth = get(DEPTH);
+        float dx = get(DRAG_X) * height * depth * deltaTime * Math.abs(vx);
+        float dy = get(DRAG_Y) * width * depth * deltaTime * Math.abs(vy);
+        float dz = get(DRAG_Z) * height * width * deltaTime * Math.abs(vz);
         ///calculate drag
 
         if (vx < 0) vx = Math.min(vx + dx + fx, 0);
@@ -314,10 +386,12 @@ public abstract class Physics extends Box {
         else if (vz > 0) vz = Math.max(vz - dz - fz, 0);
         //modify velocity based on friction and mass, and drag and surface area
 
-        velocity = new Vector(vx, vy, vz);
+        set(VELOCITY_X, vx);
+        set(VELOCITY_Y, vy);
+        set(VELOCITY_Z, vz);
         //set new velocity
 
-        setPosition(position.add(velocity.multiply(deltaTime)));
+        move(get(POSITION_X) + vx * deltaTime, get(POSITION_Y) + vy * deltaTime, get(POSITION_Z) + vz * deltaTime);
         //update position based on velocity
     }
 
@@ -325,55 +399,406 @@ public abstract class Physics extends Box {
      * check if a entity has collided with this entity
      */
     public void tickCollisions() {
-        if (!updatable || entities == null) return;
+        if (entities != null) tickCollisions(entities, null);
+    }
 
-        colliding = false;
-        overlapping = false;
-        collidingEntities.values().forEach(HashSet::clear);
-        overlappingEntities.clear();
+    /**
+     * check if any of the candidate entities have collided with this entity
+     *
+     * @param candidates entities that may be colliding with this one, usually found by a broadphase
+     */
+    public void tickCollisions(Collection<? extends Physics> candidates) {
+        tickCollisions(candidates, null);
+    }
+
+    /**
+     * check if any of the candidate entities have collided with this entity, reusing contacts from earlier ticks for
+     * pairs whose bounds have not changed since
+     *
+     * @param candidates entities that may be colliding with this one, usually found by a broadphase
+     * @param contacts   contact cache, or null to check every pair in full
+     */
+    public void tickCollisions(Collection<? extends Physics> candidates, Contacts contacts) {
+        if (!is(UPDATABLE)) return;
+
+        if (is(SLEEPING)) {
+            restoreCollisions();
+            return;
+        }
+        //sleeping entities keep their collision data instead of checking candidates
+
+        if (sleepThreshold > 0 && isAboveSleepThreshold()) {
+            for (int i = 0; i < 6; i++) {
+                for (int j = 0; j < collidingCounts[i]; j++) collidingEntities[i][j].wake();
+            }
+        }
+        //wake sleeping entities this entity was touching if it is moving
+
+        clearCollisions();
         //reset all collision data
 
-        for (Physics entity : entities) {
-            //loop through all entities in scene
-            if (entity != this && entity.updatable) {
-                //check that this is not itself, or can't be checked at the moment
-                if (super.overlaps(entity)) {
-                    //check for an overlap
-                    if (solid && entity.isSolid()) {
-                        //if this and other entity can collide
-                        collideWith(entity);
-                        //do the collision calculations
-                    } else {
-                        overlapWith(entity);
-                        //do overlap
-                    }
+        if (candidates instanceof List && candidates instanceof RandomAccess) {
+            List<? extends Physics> list = (List<? extends Physics>) candidates;
+            for (int i = 0, n = list.size(); i < n; i++) tickCollision(list.get(i), contacts);
+        } else {
+            for (Physics entity : candidates) tickCollision(entity, contacts);
+        }
+        //loop through all candidate entities, by index for lists such as broadphase results so no iterator is made
+    }
+
+    /**
+     * give the non-kinematic entities a sleeping or skipped entity is touching their collision data with it back. the
+     * scene resets non-kinematic entities every tick, and entities that do not check their collisions in a tick keep
+     * their own collision data, so without this a floor would lose the entity resting on it as soon as it fell asleep
+     * or was skipped by a level of detail
+     */
+    public void restoreCollisions() {
+        if (!is(UPDATABLE)) return;
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < collidingCounts[i]; j++) {
+                Physics physics = collidingEntities[i][j];
+                if (!physics.is(KINEMATIC)) physics.addColliding(this, opposite(SIDES[i]).ordinal());
+            }
+        }
+        for (int i = 0; i < overlappingCount; i++) {
+            if (!overlappingEntities[i].is(KINEMATIC)) overlappingEntities[i].addOverlapping(this);
+        }
+    }
+
+    /**
+     * check if a candidate entity has collided with this entity
+     *
+     * @param entity   candidate entity
+     * @param contacts contact cache, or null to check the pair in full
+     */
+    private void tickCollision(Physics entity, Contacts contacts) {
+        if (entity != this && entity.is(UPDATABLE) && interacts(entity)) {
+            //check that this is not itself, can't be checked at the moment, or is filtered out by layers
+            if (contacts != null && revalidate(entity, contacts)) return;
+            //reuse the contact from an earlier tick if neither entity moved or resized since
+            if (super.overlaps(entity)) {
+                //check for an overlap
+                if (is(SOLID) && entity.is(SOLID)) {
+                    //if this and other entity can collide
+                    collideWith(entity, contacts);
+                    //do the collision calculations
+                } else {
+                    overlapWith(entity);
+                    if (contacts != null) contacts.put(this, entity, null);
+                    //do overlap
                 }
             }
         }
     }
 
     /**
-     * fix the position of this entity to make a collision occur
+     * put the entity to sleep if it has been resting on something below the sleep threshold for long enough, or wake
+     * it if it is sleeping and something it was resting on is no longer touching it
+     */
+    public void tickSleep() {
+        if (is(SLEEPING)) {
+            Physics[] list = collidingEntities[Side.BOTTOM.ordinal()];
+            for (int i = 0, n = collidingCounts[Side.BOTTOM.ordinal()]; i < n; i++) {
+                if (!super.overlaps(list[i])) {
+                    wake();
+                    break;
+                }
+            }
+            return;
+        }
+        //sleeping entities do not check collisions, so only check that their support is still there
+
+        if (!is(UPDATABLE) || !is(KINEMATIC) || sleepThreshold <= 0) return;
+
+        if (collidesOn(Side.BOTTOM) && !isAboveSleepThreshold()) {
+            if (++restingTicks >= sleepDelay) {
+                setSleeping(true);
+                restingTicks = 0;
+            }
+        } else {
+            restingTicks = 0;
+        }
+    }
+
+    /**
+     * compare the entities touching this one with the ones touching it last tick, and send enter, stay, and exit events
+     * to the listeners of this entity and any extra listeners. does nothing if there are no listeners at all
      *
-     * @param physics entity colliding with this entity
+     * @param listeners extra listeners, such as the ones of the scene, or null
+     */
+    public void tickContacts(Collection<ContactListener> listeners) {
+        boolean extra = listeners != null && !listeners.isEmpty();
+        if (contactListeners.isEmpty() && !extra) {
+            if (!touching.isEmpty()) touching.clear();
+            return;
+        }
+        //entities without listeners skip the diff, and report everything as new once a listener is added
+
+        Set<Physics> last = touching;
+        touching = lastTouching;
+        lastTouching = last;
+        touching.clear();
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < collidingCounts[i]; j++) touching.add(collidingEntities[i][j]);
+        }
+        for (int i = 0; i < overlappingCount; i++) touching.add(overlappingEntities[i]);
+        //swap the sets so last tick's contacts are kept without copying
+
+        for (Physics physics : touching) {
+            boolean stay = lastTouching.contains(physics);
+            for (ContactListener listener : contactListeners) dispatch(listener, physics, stay);
+            if (extra) for (ContactListener listener : listeners) dispatch(listener, physics, stay);
+        }
+        for (Physics physics : lastTouching) {
+            if (touching.contains(physics)) continue;
+            for (ContactListener listener : contactListeners) listener.exit(this, physics);
+            if (extra) for (ContactListener listener : listeners) listener.exit(this, physics);
+        }
+    }
+
+    /**
+     * send an enter or stay event to a listener
+     *
+     * @param listener listener to send to
+     * @param physics  touching entity
+     * @param stay     true if the entity was touching last tick too
+     */
+    private void dispatch(ContactListener listener, Physics physics, boolean stay) {
+        if (stay) listener.stay(this, physics);
+        else listener.enter(this, physics);
+    }
+
+    /**
+     * check if the entity moved more than half its size on an axis during the last step, which is far enough to pass
+     * through an entity without ever overlapping it
+     *
+     * @return true if the entity should be swept
+     */
+    public boolean isFast() {
+        if (!is(UPDATABLE) || !is(KINEMATIC) || !is(SOLID) || is(SLEEPING)) return false;
+        return Math.abs(get(POSITION_X) - get(PREVIOUS_POSITION_X)) * 2 > get(WIDTH) ||
+                Math.abs(get(POSITION_Y) - get(PREVIOUS_POSITION_Y)) * 2 > get(HEIGHT) ||
+                Math.abs(get(POSITION_Z) - get(PREVIOUS_POSITION_Z)) * 2 > get(DEPTH);
+    }
+
+    /**
+     * get a box covering the entity along its path from its position before the last step to its current position
+     *
+     * @return swept box
+     */
+    public Box getSweptBox() {
+        return getSweptBox(new Box());
+    }
+
+    /**
+     * set a box to cover the entity along its path from its position before the last step to its current position,
+     * without making a new box
+     *
+     * @param box box to set
+     * @return the swept box
+     */
+    public Box getSweptBox(Box box) {
+        float x0 = get(PREVIOUS_POSITION_X), y0 = get(PREVIOUS_POSITION_Y), z0 = get(PREVIOUS_POSITION_Z);
+        float x1 = get(POSITION_X), y1 = get(POSITION_Y), z1 = get(POSITION_Z);
+        return box.setDimensions(get(WIDTH) + Math.abs(x1 - x0), get(HEIGHT) + Math.abs(y1 - y0),
+                get(DEPTH) + Math.abs(z1 - z0)).setPosition((x0 + x1) / 2, (y0 + y1) / 2, (z0 + z1) / 2);
+    }
+
+    /**
+     * find the first solid entity this entity hit along its path during the last step, and move it back to touch that
+     * entity. the entity is left barely overlapping so the collision tick collides them as usual
+     *
+     * @param candidates entities that may be in the path, usually found by a broadphase
+     * @return true if the entity was moved back
+     */
+    public boolean sweep(Collection<? extends Physics> candidates) {
+        if (!is(SOLID)) return false;
+        float x0 = get(PREVIOUS_POSITION_X), y0 = get(PREVIOUS_POSITION_Y), z0 = get(PREVIOUS_POSITION_Z);
+        float dx = get(POSITION_X) - x0, dy = get(POSITION_Y) - y0, dz = get(POSITION_Z) - z0;
+        float hw = get(WIDTH) / 2, hh = get(HEIGHT) / 2, hd = get(DEPTH) / 2;
+
+        Physics hit = null;
+        float first = 2;
+        if (candidates instanceof List && candidates instanceof RandomAccess) {
+            List<? extends Physics> list = (List<? extends Physics>) candidates;
+            for (int i = 0, n = list.size(); i < n; i++) {
+                float enter = sweepTime(list.get(i));
+                if (enter >= 0 && enter < first) {
+                    hit = list.get(i);
+                    first = enter;
+                }
+            }
+        } else {
+            for (Physics physics : candidates) {
+                float enter = sweepTime(physics);
+                if (enter >= 0 && enter < first) {
+                    hit = physics;
+                    first = enter;
+                }
+            }
+        }
+        if (hit == null) return false;
+        //find the first entity hit, by index for lists such as broadphase results so no iterator is made
+
+        int axis = first == sweepEntry(hit, 0) ? 0 : first == sweepEntry(hit, 1) ? 1 : 2;
+        float extent = (axis == 0 ? hw + hit.get(WIDTH) / 2 : axis == 1 ? hh + hit.get(HEIGHT) / 2 :
+                hd + hit.get(DEPTH) / 2) - SWEEP_OVERLAP;
+        float face = hit.get(POSITION_X + axis) + (relative(hit, axis) > 0 ? -extent : extent);
+        move(axis == 0 ? face : x0 + dx * first, axis == 1 ? face : y0 + dy * first,
+                axis == 2 ? face : z0 + dz * first);
+        //put the entity against the face it hit, which is where the other entity is now on the hit axis
+        return true;
+    }
+
+    /**
+     * find the fraction of the last step at which this entity first touched another entity along its path
+     *
+     * @param physics entity that may be in the path
+     * @return fraction of the step, or -1 if it was not hit, was already overlapping, or can not be hit
+     */
+    private float sweepTime(Physics physics) {
+        if (physics == this || !physics.is(SOLID) || !physics.is(UPDATABLE) || !interacts(physics)) return -1;
+        float enter = Math.max(sweepEntry(physics, 0), Math.max(sweepEntry(physics, 1), sweepEntry(physics, 2)));
+        float leave = Math.min(sweepExit(physics, 0), Math.min(sweepExit(physics, 1), sweepExit(physics, 2)));
+        return enter < 0 || enter > leave || enter > 1 ? -1 : enter;
+        //skip entities already overlapping at the start or missed
+    }
+
+    /**
+     * get the fraction of the last step at which this entity started to overlap another entity on an axis, sweeping
+     * relative to the other entity, which stays where it started
+     *
+     * @param physics other entity
+     * @param axis    axis index
+     * @return entry time
+     */
+    private float sweepEntry(Physics physics, int axis) {
+        return entry(get(PREVIOUS_POSITION_X + axis), get(WIDTH + axis) / 2, physics.get(PREVIOUS_POSITION_X + axis),
+                physics.get(WIDTH + axis) / 2, relative(physics, axis));
+    }
+
+    /**
+     * get the fraction of the last step at which this entity stopped overlapping another entity on an axis, sweeping
+     * relative to the other entity, which stays where it started
+     *
+     * @param physics other entity
+     * @param axis    axis index
+     * @return exit time
+     */
+    private float sweepExit(Physics physics, int axis) {
+        return exit(get(PREVIOUS_POSITION_X + axis), get(WIDTH + axis) / 2, physics.get(PREVIOUS_POSITION_X + axis),
+                physics.get(WIDTH + axis) / 2, relative(physics, axis));
+    }
+
+    /**
+     * get how far this entity moved relative to another entity on an axis during the last step
+     *
+     * @param physics other entity
+     * @param axis    axis index
+     * @return relative distance moved
+     */
+    private float relative(Physics physics, int axis) {
+        return (get(POSITION_X + axis) - get(PREVIOUS_POSITION_X + axis)) -
+                (physics.get(POSITION_X + axis) - physics.get(PREVIOUS_POSITION_X + axis));
+    }
+
+    /**
+     * reset all collision data of the entity. called by the scene for non-kinematic entities, which do not check their
+     * own collisions and only get collision data from the kinematic entities that touch them
      */
-    private void collideWith(Physics physics) {
-        float[] overlaps = new float[6];
-        overlaps[0] = Math.abs(getMinimum().getX() - physics.getMaximum().getX()); //left
-        overlaps[1] = Math.abs(getMaximum().getX() - physics.getMinimum().getX()); //right
-        overlaps[2] = Math.abs(getMinimum().getY() - physics.getMaximum().getY()); //bottom
-        overlaps[3] = Math.abs(getMaximum().getY() - physics.getMinimum().getY()); //top
-        overlaps[4] = Math.abs(getMinimum().getZ() - physics.getMaximum().getZ()); //back
-        overlaps[5] = Math.abs(getMaximum().getZ() - physics.getMinimum().getZ()); //front
-        //get overlap distances
+    public void clearCollisions() {
+        for (int i = 0; i < 6; i++) {
+            Arrays.fill(collidingEntities[i], 0, collidingCounts[i], null);
+            collidingCounts[i] = 0;
+        }
+        Arrays.fill(overlappingEntities, 0, overlappingCount, null);
+        overlappingCount = 0;
+        collidingSides = 0;
+        //let go of the entities so removed ones can be collected
+    }
 
+    /**
+     * point the collision data of a copied entity at the copies of the entities it was touching, so a copy of a scene
+     * does not reach into the scene it was copied from. entities without a copy are dropped
+     *
+     * @param copies copy of each entity by the entity it was copied from, compared by identity
+     */
+    public void remapCollisions(Map<? extends Physics, ? extends Physics> copies) {
+        for (int i = 0; i < 6; i++) {
+            int count = 0;
+            for (int j = 0; j < collidingCounts[i]; j++) {
+                Physics copy = copies.get(collidingEntities[i][j]);
+                if (copy != null) collidingEntities[i][count++] = copy;
+            }
+            Arrays.fill(collidingEntities[i], count, collidingCounts[i], null);
+            collidingCounts[i] = count;
+            if (count == 0) collidingSides &= ~(1 << i);
+        }
+        int count = 0;
+        for (int i = 0; i < overlappingCount; i++) {
+            Physics copy = copies.get(overlappingEntities[i]);
+            if (copy != null) overlappingEntities[count++] = copy;
+        }
+        Arrays.fill(overlappingEntities, count, overlappingCount, null);
+        overlappingCount = count;
+        //keep the contacts in order, so the copy ticks the same as the original
+
+        Set<Physics> remapped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Physics physics : touching) {
+            Physics copy = copies.get(physics);
+            if (copy != null) remapped.add(copy);
+        }
+        touching = remapped;
+        //keep the touching entities so the copy does not report them as new contacts
+    }
+
+    /**
+     * repeat a cached contact with an entity if the bounds of both entities are the same as when it was cached. only
+     * contacts that did not move this entity are cached, so the side was found from these same bounds and the overlap
+     * calculation would give the same result
+     *
+     * @param physics  entity to check against
+     * @param contacts contact cache
+     * @return true if the contact was repeated, false if the pair has to be checked in full
+     */
+    private boolean revalidate(Physics physics, Contacts contacts) {
+        Contacts.Contact contact = contacts.get(this, physics);
+        if (contact == null || contact.firstVersion != getVersion() || contact.secondVersion != physics.getVersion())
+            return false;
+        boolean solid = is(SOLID) && physics.is(SOLID);
+        if (contact.side == null) {
+            if (solid) return false;
+            overlapWith(physics);
+        } else {
+            if (!solid) return false;
+            int axis = contact.side == Side.LEFT || contact.side == Side.RIGHT ? 0 :
+                    contact.side == Side.BOTTOM || contact.side == Side.TOP ? 1 : 2;
+            int dir = contact.side == Side.LEFT || contact.side == Side.BOTTOM || contact.side == Side.BACK ? -1 : 1;
+            if (is(KINEMATIC) && get(VELOCITY_X + axis) * dir > 0) return false;
+            //moving into the other entity needs a position fix, which the full check does
+            addCollision(physics, contact.side);
+        }
+        contacts.keep(contact);
+        return true;
+    }
+
+    /**
+     * fix the position of this entity to make a collision occur
+     *
+     * @param physics  entity colliding with this entity
+     * @param contacts contact cache to store the contact in, or null
+     */
+    private void collideWith(Physics physics, Contacts contacts) {
         byte zeros = 0;
         byte axis = 1;
         byte dir = -1;
-        float distance = overlaps[0];
+        float distance = overlap(physics, 0);
         for (int i = 0; i < 6; i++) {
-            if (overlaps[i] < distance) {
-                distance = overlaps[i];
+            float overlap = overlap(physics, i);
+            //get overlap distance on the side
+
+            if (overlap < distance) {
+                distance = overlap;
                 dir = (byte) -Math.pow(-1, i);
                 if (i <= 1) {
                     axis = 1;
@@ -385,44 +810,85 @@ public abstract class Physics extends Box {
             }
             //find min overlap, direction, and axis of collision
 
-            if (overlaps[i] == 0) zeros++;
+            if (overlap == 0) zeros++;
             //check for 0 distance overlaps
         }
 
         if (zeros > 1) return;
         //if entity has more than one 0 overlaps, it is technically not touching, so stop collision
 
-        colliding = true;
-        //set entity to colliding
+        Side side;
+        boolean moved = false;
+        float x = get(POSITION_X), y = get(POSITION_Y), z = get(POSITION_Z);
+        float vx = get(VELOCITY_X), vy = get(VELOCITY_Y), vz = get(VELOCITY_Z);
 
         if (axis == 1) {
             // check if collision is on this axis (1 = x, 2 = y, 3 = z)
-            if (kinematic && velocity.getX() * dir > 0) {
+            if (is(KINEMATIC) && vx * dir > 0) {
                 // check if entity is moving in proper direction on the axis
-                if (Math.signum(velocity.getX()) == -Math.signum(physics.velocity.getX()))
+                float other = physics.get(VELOCITY_X);
+                if (Math.signum(vx) == -Math.signum(other))
                     //check that the two entities are moving towards each other
-                    distance *= velocity.getX() / (velocity.getX() - physics.velocity.getX());
+                    distance *= vx / (vx - other);
                 // scale distance based on entity velocities to improve collision accuracy
-                setPosition(position.setX(position.getX() - (distance * dir)));
+                moved = move(x - (distance * dir), y, z);
                 // fix entity position so it is not overlapping
             }
-            collidingEntities.get(dir == -1 ? Side.LEFT : Side.RIGHT).add(physics);
-            //add to colliding entities for the colliding side
+            side = dir == -1 ? Side.LEFT : Side.RIGHT;
+            //find the side of this entity that collided
         } else if (axis == 2) {
-            if (kinematic && velocity.getY() * dir > 0) {
-                if (Math.signum(velocity.getY()) == -Math.signum(physics.velocity.getY()))
-                    distance *= velocity.getY() / (velocity.getY() - physics.velocity.getY());
-                setPosition(position.setY(position.getY() - (distance * dir)));
+            if (is(KINEMATIC) && vy * dir > 0) {
+                float other = physics.get(VELOCITY_Y);
+                if (Math.signum(vy) == -Math.signum(other))
+                    distance *= vy / (vy - other);
+                moved = move(x, y - (distance * dir), z);
             }
-            collidingEntities.get(dir == -1 ? Side.BOTTOM : Side.TOP).add(physics);
+            side = dir == -1 ? Side.BOTTOM : Side.TOP;
         } else {
-            if (kinematic && velocity.getZ() * dir > 0) {
-                if (Math.signum(velocity.getZ()) == -Math.signum(physics.velocity.getZ()))
-                    distance *= velocity.getZ() / (velocity.getZ() - physics.velocity.getZ());
-                setPosition(position.setZ(position.getZ() - (distance * dir)));
+            if (is(KINEMATIC) && vz * dir > 0) {
+                float other = physics.get(VELOCITY_Z);
+                if (Math.signum(vz) == -Math.signum(other))
+                    distance *= vz / (vz - other);
+                moved = move(x, y, z - (distance * dir));
             }
-            collidingEntities.get(dir == -1 ? Side.BACK : Side.FRONT).add(physics);
+            side = dir == -1 ? Side.BACK : Side.FRONT;
+        }
+
+        addCollision(physics, side);
+        //add to colliding entities for the colliding side, and to the other entity if it does not check its own
+
+        if (contacts != null && !moved) contacts.put(this, physics, side);
+        //only cache the contact if the bounds are the ones the side was found from, a full check on the fixed bounds
+        //could find a different side
+    }
+
+    /**
+     * add an entity as colliding on a side. non-kinematic entities do not check their own collisions, so this entity
+     * is added to the opposite side of the other entity too
+     *
+     * @param physics entity colliding with this entity
+     * @param side    side of this entity the other entity is on
+     */
+    private void addCollision(Physics physics, Side side) {
+        addColliding(physics, side.ordinal());
+        if (!physics.is(KINEMATIC)) physics.addColliding(this, opposite(side).ordinal());
+    }
+
+    /**
+     * add an entity to the colliding entities of a side. a pair is only checked once per tick, so entities are never
+     * added twice
+     *
+     * @param physics entity colliding with this entity
+     * @param side    side index
+     */
+    private void addColliding(Physics physics, int side) {
+        int count = collidingCounts[side];
+        if (count == collidingEntities[side].length) {
+            collidingEntities[side] = Arrays.copyOf(collidingEntities[side], Math.max(2, count * 2));
         }
+        collidingEntities[side][count] = physics;
+        collidingCounts[side] = count + 1;
+        collidingSides |= 1 << side;
     }
 
     /**
@@ -431,8 +897,390 @@ public abstract class Physics extends Box {
      * @param physics entity to overlap with
      */
     private void overlapWith(Physics physics) {
-        overlapping = true;
-        overlappingEntities.add(physics);
+        addOverlapping(physics);
+        if (!physics.is(KINEMATIC)) physics.addOverlapping(this);
+    }
+
+    /**
+     * add an entity to the overlapping entities
+     *
+     * @param physics entity overlapping this entity
+     */
+    private void addOverlapping(Physics physics) {
+        if (overlappingCount == overlappingEntities.length) {
+            overlappingEntities = Arrays.copyOf(overlappingEntities, Math.max(2, overlappingCount * 2));
+        }
+        overlappingEntities[overlappingCount++] = physics;
+    }
+
+    /**
+     * check if an entity is in the first entries of a list, comparing by identity
+     *
+     * @param list    list to search
+     * @param count   number of entries used
+     * @param physics entity to find
+     * @return true if the entity is in the list
+     */
+    private static boolean contains(Physics[] list, int count, Physics physics) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == physics) return true;
+        }
+        return false;
+    }
+
+    /**
+     * get the side opposite to a side
+     *
+     * @param side side of a box
+     * @return opposite side
+     */
+    private static Side opposite(Side side) {
+        switch (side) {
+            case LEFT:
+                return Side.RIGHT;
+            case RIGHT:
+                return Side.LEFT;
+            case BOTTOM:
+                return Side.TOP;
+            case TOP:
+                return Side.BOTTOM;
+            case BACK:
+                return Side.FRONT;
+            default:
+                return Side.BACK;
+        }
+    }
+
+    /**
+     * check if the entity is moving faster than its sleep threshold
+     *
+     * @return true if moving faster than the sleep threshold
+     */
+    private boolean isAboveSleepThreshold() {
+        float vx = get(VELOCITY_X), vy = get(VELOCITY_Y), vz = get(VELOCITY_Z);
+        return (vx * vx) + (vy * vy) + (vz * vz) > sleepThreshold * sleepThreshold;
+    }
+
+    /**
+     * get the mass of this entity and everything stacked behind it on a side, from the scene's cache if it is current
+     *
+     * @param side side to follow
+     * @return total mass
+     */
+    private float stackedMass(Side side) {
+        if (stacks != null && stacks.isCached(this, side.ordinal())) return stackedMasses[side.ordinal()];
+
+        float total = 0;
+        Queue<Physics> current = new ArrayDeque<>();
+        Set<Physics> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.add(this);
+        while (!current.isEmpty()) {
+            Physics physics = current.poll();
+            if (visited.add(physics)) {
+                total += physics.get(MASS);
+                Physics[] list = physics.collidingEntities[side.ordinal()];
+                for (int i = 0, n = physics.collidingCounts[side.ordinal()]; i < n; i++) current.add(list[i]);
+            }
+        }
+        //walk the stack directly when ticked outside a scene
+
+        return total;
+    }
+
+    /**
+     * get the fraction of a step at which a moving box starts to overlap a still box on an axis
+     *
+     * @param a  center of the moving box
+     * @param ha half size of the moving box
+     * @param b  center of the still box
+     * @param hb half size of the still box
+     * @param d  distance the moving box moves
+     * @return entry time, negative infinity if always overlapping and positive infinity if never overlapping
+     */
+    private static float entry(float a, float ha, float b, float hb, float d) {
+        if (d > 0) return (b - hb - (a + ha)) / d;
+        if (d < 0) return (b + hb - (a - ha)) / d;
+        return Math.abs(a - b) <= ha + hb ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * get the fraction of a step at which a moving box stops overlapping a still box on an axis
+     *
+     * @param a  center of the moving box
+     * @param ha half size of the moving box
+     * @param b  center of the still box
+     * @param hb half size of the still box
+     * @param d  distance the moving box moves
+     * @return exit time, positive infinity if always overlapping and negative infinity if never overlapping
+     */
+    private static float exit(float a, float ha, float b, float hb, float d) {
+        if (d > 0) return (b + hb - (a - ha)) / d;
+        if (d < 0) return (b - hb - (a + ha)) / d;
+        return Math.abs(a - b) <= ha + hb ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * check if an entity stays asleep when pushed by another entity. a pusher resting on top of the entity gains a
+     * tick of gravity every tick, so that is allowed on top of the sleep threshold
+     *
+     * @param asleep    whether the pushed entity is asleep
+     * @param relative  speed of the pusher relative to the pushed entity on the axis
+     * @param threshold sleep threshold of the pushed entity
+     * @param gravity   gravity of the pusher on the axis
+     * @param deltaTime time elapsed in the pusher's tick
+     * @return true if the pushed entity is asleep and stays asleep
+     */
+    private static boolean holds(boolean asleep, float relative, float threshold, float gravity, float deltaTime) {
+        return asleep && Math.abs(relative) <= threshold + Math.abs(gravity) * deltaTime;
+    }
+
+    /**
+     * check if an entity touching this one on a side was moving into it at the start of the tick
+     *
+     * @param physics touching entity
+     * @param side    side of this entity it touches
+     * @return true if the touching entity can push and is moving into this entity
+     */
+    private static boolean approaches(Physics physics, Side side) {
+        if (!physics.is(UPDATABLE) || !physics.is(KINEMATIC)) return false;
+        switch (side) {
+            case LEFT:
+                return physics.get(LAST_VELOCITY_X) > 0;
+            case RIGHT:
+                return physics.get(LAST_VELOCITY_X) < 0;
+            case BOTTOM:
+                return physics.get(LAST_VELOCITY_Y) > 0;
+            case TOP:
+                return physics.get(LAST_VELOCITY_Y) < 0;
+            case BACK:
+                return physics.get(LAST_VELOCITY_Z) > 0;
+            default:
+                return physics.get(LAST_VELOCITY_Z) < 0;
+        }
+    }
+
+    /**
+     * calculate the velocity of this entity on an axis after being pushed by another entity, the same way the pusher
+     * would push this entity when not buffered
+     *
+     * @param physics   pushing entity
+     * @param axis      axis index, 0 for x, 1 for y, and 2 for z
+     * @param v1        velocity of this entity on the axis
+     * @param deltaTime time elapsed to use in calculation
+     * @return new velocity of this entity on the axis
+     */
+    private float push(Physics physics, int axis, float v1, float deltaTime) {
+        float v2 = physics.get(LAST_VELOCITY_X + axis);
+        if (holds(is(LAST_SLEEPING), v2 - v1, sleepThreshold, physics.get(GRAVITY_X + axis), deltaTime)) return v1;
+        float mass = get(MASS), otherMass = physics.get(MASS);
+        float sum = mass + otherMass;
+        float diff = mass - otherMass;
+        return ((diff / sum) * v1) + ((2 * otherMass / sum) * v2);
+    }
+
+    /**
+     * check if a sleeping entity is pushed awake by anything touching it, using the state at the start of the tick
+     *
+     * @param deltaTime time elapsed to use in calculation
+     * @return true if something pushes this entity hard enough to wake it
+     */
+    private boolean isPushed(float deltaTime) {
+        for (Side side : SIDES) {
+            int axis = side == Side.LEFT || side == Side.RIGHT ? 0 : side == Side.BOTTOM || side == Side.TOP ? 1 : 2;
+            if (!is(PUSHABLE_X << axis)) continue;
+            Physics[] list = collidingEntities[side.ordinal()];
+            for (int i = 0, n = collidingCounts[side.ordinal()]; i < n; i++) {
+                Physics physics = list[i];
+                if (!approaches(physics, side)) continue;
+                float relative = physics.get(LAST_VELOCITY_X + axis) - get(VELOCITY_X + axis);
+                if (!holds(true, relative, sleepThreshold, physics.get(GRAVITY_X + axis), deltaTime)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * wake the entity up if it is sleeping
+     */
+    private void wake() {
+        if (is(SLEEPING)) {
+            flag(SLEEPING, false);
+            restingTicks = 0;
+        }
+    }
+
+    /**
+     * move the entity without waking it, used while ticking
+     *
+     * @param x x position
+     * @param y y position
+     * @param z z position
+     * @return true if the position changed
+     */
+    private boolean move(float x, float y, float z) {
+        if (x == get(POSITION_X) && y == get(POSITION_Y) && z == get(POSITION_Z)) return false;
+        //keep the bounds version when nothing moved, so resting entities keep their cached contacts
+        set(POSITION_X, x);
+        set(POSITION_Y, y);
+        set(POSITION_Z, z);
+        super.setPosition(x, y, z);
+        return true;
+    }
+
+    /**
+     * check if the motion tick of the entity can be run by the batched pass of its world, which is the case when it
+     * would tick with nothing touching it
+     *
+     * @return true if the entity is awake, can move, and is not colliding
+     */
+    boolean isFree() {
+        return is(UPDATABLE) && is(KINEMATIC) && !is(SLEEPING) && collidingSides == 0;
+    }
+
+    /**
+     * get the time step the entity moves by in a tick
+     *
+     * @param deltaTime time elapsed in the tick
+     * @return time step of the entity
+     */
+    float step(float deltaTime) {
+        return deltaTime;
+    }
+
+    /**
+     * update the bounds of the entity after a batched pass moved its slot
+     */
+    void syncPosition() {
+        float x = get(POSITION_X), y = get(POSITION_Y), z = get(POSITION_Z);
+        if (x != getX() || y != getY() || z != getZ()) super.setPosition(x, y, z);
+    }
+
+    /**
+     * get a value from the entity's slot
+     *
+     * @param column column index
+     * @return value
+     */
+    private float get(int column) {
+        return world.get(column, slot);
+    }
+
+    /**
+     * set a value in the entity's slot
+     *
+     * @param column column index
+     * @param value  new value
+     */
+    private void set(int column, float value) {
+        world.set(column, slot, value);
+    }
+
+    /**
+     * check if flags are set in the entity's slot
+     *
+     * @param flag flags to check
+     * @return true if any of the flags are set
+     */
+    private boolean is(int flag) {
+        return world.is(slot, flag);
+    }
+
+    /**
+     * set or clear flags in the entity's slot
+     *
+     * @param flag  flags to change
+     * @param value true to set the flags
+     */
+    private void flag(int flag, boolean value) {
+        world.setFlag(slot, flag, value);
+    }
+
+    /**
+     * get the distance this entity overlaps another entity on a side, from the slots of both entities. the bounds are
+     * calculated the same way as the bounds of the boxes
+     *
+     * @param physics other entity
+     * @param side    side index, in the order left, right, bottom, top, back, front
+     * @return overlap distance
+     */
+    private float overlap(Physics physics, int side) {
+        int position = POSITION_X + side / 2, size = WIDTH + side / 2;
+        float half = get(size) / 2.0f, otherHalf = physics.get(size) / 2.0f;
+        return side % 2 == 0 ? Math.abs((get(position) - half) - (physics.get(position) + otherHalf)) :
+                Math.abs((get(position) + half) - (physics.get(position) - otherHalf));
+    }
+
+    /**
+     * get three columns as a vector
+     *
+     * @param column x column index, followed by the y and z columns
+     * @return vector of the values
+     */
+    private Vector vector(int column) {
+        return new Vector(get(column), get(column + 1), get(column + 2));
+    }
+
+    /**
+     * set three columns from a vector
+     *
+     * @param column x column index, followed by the y and z columns
+     * @param vector vector of the values
+     */
+    private void vector(int column, Vector vector) {
+        set(column, vector.getX());
+        set(column + 1, vector.getY());
+        set(column + 2, vector.getZ());
+    }
+
+    /**
+     * get the world storing the physics state of the entity
+     *
+     * @return physics world
+     */
+    public PhysicsWorld getWorld() {
+        return world;
+    }
+
+    /**
+     * get the slot of the entity in its world
+     *
+     * @return slot index
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * move the physics state of the entity into another world, giving back its slot in the old one
+     *
+     * @param world world to move to
+     */
+    public Physics setWorld(PhysicsWorld world) {
+        if (world == this.world) return this;
+        int target = world.allocate();
+        this.world.copy(slot, world, target);
+        this.world.release(slot);
+        this.world = world;
+        slot = target;
+        return this;
+    }
+
+    /**
+     * attach the entity to a slot that already holds the state of an entity, such as a slot of a world opened from a
+     * file, giving back its slot in its current world. the entity takes the position and size stored in the slot
+     *
+     * @param world world holding the slot
+     * @param slot  slot to attach to
+     * @throws IllegalArgumentException if the slot is not waiting for an entity
+     */
+    public Physics attach(PhysicsWorld world, int slot) {
+        world.claim(slot);
+        this.world.release(this.slot);
+        this.world = world;
+        this.slot = slot;
+        super.setDimensions(get(WIDTH), get(HEIGHT), get(DEPTH));
+        super.setPosition(get(POSITION_X), get(POSITION_Y), get(POSITION_Z));
+        return this;
     }
 
     /**
@@ -441,7 +1289,18 @@ public abstract class Physics extends Box {
      * @return position vector of entity
      */
     public Vector getPosition() {
-        return position;
+        return vector(POSITION_X);
+    }
+
+    /**
+     * get the position of the entity without making a new vector
+     *
+     * @param result vector to store the position in
+     * @return result vector
+     */
+    @Override
+    public MutableVector getPosition(MutableVector result) {
+        return result.set(get(POSITION_X), get(POSITION_Y), get(POSITION_Z));
     }
 
     /**
@@ -450,18 +1309,59 @@ public abstract class Physics extends Box {
      * @param position position vector
      */
     public Physics setPosition(Vector position) {
-        this.position = position;
-        super.setPosition(position);
+        return setPosition(position.getX(), position.getY(), position.getZ());
+    }
+
+    /**
+     * set the position of the entity without making a new vector
+     *
+     * @param x x position
+     * @param y y position
+     * @param z z position
+     */
+    @Override
+    public Physics setPosition(float x, float y, float z) {
+        move(x, y, z);
+        set(PREVIOUS_POSITION_X, x);
+        set(PREVIOUS_POSITION_Y, y);
+        set(PREVIOUS_POSITION_Z, z);
+        wake();
         return this;
     }
 
+    /**
+     * get the position of the entity between the previous fixed step and the current one. setting the position moves
+     * both, so placed entities do not slide from where they were
+     *
+     * @param alpha fraction of a step from 0 at the previous step to 1 at the current step
+     * @return interpolated position vector
+     */
+    public Vector getInterpolatedPosition(float alpha) {
+        float x = get(PREVIOUS_POSITION_X), y = get(PREVIOUS_POSITION_Y), z = get(PREVIOUS_POSITION_Z);
+        return new Vector(x + (get(POSITION_X) - x) * alpha, y + (get(POSITION_Y) - y) * alpha,
+                z + (get(POSITION_Z) - z) * alpha);
+    }
+
+    /**
+     * get the position of the entity between the previous fixed step and the current one without making a new vector
+     *
+     * @param alpha  fraction of a step from 0 at the previous step to 1 at the current step
+     * @param result vector to set to the interpolated position
+     * @return the result vector
+     */
+    public MutableVector getInterpolatedPosition(float alpha, MutableVector result) {
+        float x = get(PREVIOUS_POSITION_X), y = get(PREVIOUS_POSITION_Y), z = get(PREVIOUS_POSITION_Z);
+        return result.set(x + (get(POSITION_X) - x) * alpha, y + (get(POSITION_Y) - y) * alpha,
+                z + (get(POSITION_Z) - z) * alpha);
+    }
+
     /**
      * get the velocity vector of the entity
      *
      * @return velocity vector of an entity
      */
     public Vector getVelocity() {
-        return velocity;
+        return vector(VELOCITY_X);
     }
 
     /**
@@ -470,7 +1370,8 @@ public abstract class Physics extends Box {
      * @param velocity velocity vector
      */
     public Physics setVelocity(Vector velocity) {
-        this.velocity = velocity;
+        vector(VELOCITY_X, velocity);
+        wake();
         return this;
     }
 
@@ -480,7 +1381,7 @@ public abstract class Physics extends Box {
      * @return acceleration vector of an entity
      */
     public Vector getAcceleration() {
-        return acceleration;
+        return vector(ACCELERATION_X);
     }
 
     /**
@@ -489,7 +1390,8 @@ public abstract class Physics extends Box {
      * @param acceleration acceleration vector
      */
     public Physics setAcceleration(Vector acceleration) {
-        this.acceleration = acceleration;
+        vector(ACCELERATION_X, acceleration);
+        wake();
         return this;
     }
 
@@ -499,7 +1401,7 @@ public abstract class Physics extends Box {
      * @return gravity vector
      */
     public Vector getGravity() {
-        return gravity;
+        return vector(GRAVITY_X);
     }
 
     /**
@@ -508,7 +1410,8 @@ public abstract class Physics extends Box {
      * @param gravity gravity vector
      */
     public Physics setGravity(Vector gravity) {
-        this.gravity = gravity;
+        vector(GRAVITY_X, gravity);
+        wake();
         return this;
     }
 
@@ -518,7 +1421,7 @@ public abstract class Physics extends Box {
      * @return terminal velocity vector
      */
     public Vector getTerminalVelocity() {
-        return terminalVelocity;
+        return vector(TERMINAL_VELOCITY_X);
     }
 
     /**
@@ -527,7 +1430,7 @@ public abstract class Physics extends Box {
      * @param terminalVelocity terminal velocity vector
      */
     public Physics setTerminalVelocity(Vector terminalVelocity) {
-        this.terminalVelocity = terminalVelocity;
+        vector(TERMINAL_VELOCITY_X, terminalVelocity);
         return this;
     }
 
@@ -537,7 +1440,7 @@ public abstract class Physics extends Box {
      * @return drag vector of an entity
      */
     public Vector getDrag() {
-        return drag;
+        return vector(DRAG_X);
     }
 
     /**
@@ -546,7 +1449,7 @@ public abstract class Physics extends Box {
      * @param drag drag of entity
      */
     public Physics setDrag(Vector drag) {
-        this.drag = drag;
+        vector(DRAG_X, drag);
         return this;
     }
 
@@ -556,7 +1459,7 @@ public abstract class Physics extends Box {
      * @return roughness vector
      */
     public Vector getRoughness() {
-        return roughness;
+        return vector(ROUGHNESS_X);
     }
 
     /**
@@ -565,7 +1468,43 @@ public abstract class Physics extends Box {
      * @param roughness friction vector
      */
     public Physics setRoughness(Vector roughness) {
-        this.roughness = roughness;
+        vector(ROUGHNESS_X, roughness);
+        return this;
+    }
+
+    /**
+     * set a new width of the entity
+     *
+     * @param width width of entity
+     */
+    @Override
+    public Box setWidth(float width) {
+        super.setWidth(width);
+        set(WIDTH, getWidth());
+        return this;
+    }
+
+    /**
+     * set a new height of the entity
+     *
+     * @param height height of entity
+     */
+    @Override
+    public Box setHeight(float height) {
+        super.setHeight(height);
+        set(HEIGHT, getHeight());
+        return this;
+    }
+
+    /**
+     * set a new depth of the entity
+     *
+     * @param depth depth of entity
+     */
+    @Override
+    public Box setDepth(float depth) {
+        super.setDepth(depth);
+        set(DEPTH, getDepth());
         return this;
     }
 
@@ -575,7 +1514,7 @@ public abstract class Physics extends Box {
      * @return true if able to be collided with
      */
     public boolean isSolid() {
-        return solid;
+        return is(SOLID);
     }
 
     /**
@@ -584,7 +1523,7 @@ public abstract class Physics extends Box {
      * @param solid true to allow collisions
      */
     public Physics setSolid(boolean solid) {
-        this.solid = solid;
+        flag(SOLID, solid);
         return this;
     }
 
@@ -594,7 +1533,7 @@ public abstract class Physics extends Box {
      * @return true if the entity is colliding with another entity
      */
     public boolean isColliding() {
-        return colliding;
+        return collidingSides != 0;
     }
 
     /**
@@ -604,8 +1543,8 @@ public abstract class Physics extends Box {
      * @return true if this entity collides with the other entity
      */
     public boolean collidesWith(Physics physics) {
-        for (HashSet<Physics> list : collidingEntities.values()) {
-            if (list.contains(physics)) return true;
+        for (int i = 0; i < 6; i++) {
+            if (contains(collidingEntities[i], collidingCounts[i], physics)) return true;
         }
         return false;
     }
@@ -617,7 +1556,16 @@ public abstract class Physics extends Box {
      * @return true if the entity is colliding on the side
      */
     public boolean collidesOn(Side side) {
-        return !collidingEntities.get(side).isEmpty();
+        return (collidingSides & (1 << side.ordinal())) != 0;
+    }
+
+    /**
+     * get the sides this entity is colliding on
+     *
+     * @return bit per colliding side, in side order
+     */
+    public int getCollidingSides() {
+        return collidingSides;
     }
 
     /**
@@ -628,27 +1576,62 @@ public abstract class Physics extends Box {
      * @return true if the entity is colliding with the other entity on the specified side
      */
     public boolean collidesWithOn(Physics physics, Side side) {
-        return collidingEntities.get(side).contains(physics);
+        return contains(collidingEntities[side.ordinal()], collidingCounts[side.ordinal()], physics);
     }
 
     /**
-     * get all entities colliding on the specified side
+     * get all entities colliding on the specified side, as a read only view that changes with the collisions
      *
      * @param side side to get colliding entities of
-     * @return set of all entities colliding on the side
+     * @return list of all entities colliding on the side
+     */
+    public List<Physics> getCollidingEntities(Side side) {
+        int index = side.ordinal();
+        return new AbstractList<Physics>() {
+            @Override
+            public Physics get(int i) {
+                return getCollidingEntity(side, i);
+            }
+
+            @Override
+            public int size() {
+                return collidingCounts[index];
+            }
+        };
+    }
+
+    /**
+     * get the number of entities colliding on a side
+     *
+     * @param side side of the entity
+     * @return number of colliding entities
+     */
+    public int getCollidingCount(Side side) {
+        return collidingCounts[side.ordinal()];
+    }
+
+    /**
+     * get an entity colliding on a side by index, for going through them without making a list
+     *
+     * @param side  side of the entity
+     * @param index index from 0 to the colliding count of the side
+     * @return colliding entity
      */
-    public HashSet<Physics> getCollidingEntities(Side side) {
-        return collidingEntities.get(side);
+    public Physics getCollidingEntity(Side side, int index) {
+        if (index >= collidingCounts[side.ordinal()]) throw new IndexOutOfBoundsException(index);
+        return collidingEntities[side.ordinal()][index];
     }
 
     /**
-     * get a set of all entities colliding with this one
+     * get a list of all entities colliding with this one. entities only collide on one side, so there are no repeats
      *
      * @return all colliding entities
      */
-    public HashSet<Physics> getCollidingEntities() {
-        HashSet<Physics> allEntities = new HashSet<>();
-        for (Side side : Side.values()) allEntities.addAll(collidingEntities.get(side));
+    public List<Physics> getCollidingEntities() {
+        ArrayList<Physics> allEntities = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < collidingCounts[i]; j++) allEntities.add(collidingEntities[i][j]);
+        }
         return allEntities;
     }
 
@@ -658,7 +1641,7 @@ public abstract class Physics extends Box {
      * @return true if overlapping
      */
     public boolean isOverlapping() {
-        return overlapping;
+        return overlappingCount > 0;
     }
 
     /**
@@ -668,16 +1651,89 @@ public abstract class Physics extends Box {
      * @return true if this entity overlaps the specified entity
      */
     public boolean overlaps(Physics physics) {
-        return overlappingEntities.contains(physics);
+        return contains(overlappingEntities, overlappingCount, physics);
+    }
+
+    /**
+     * get all entities overlapping this one, as a read only view that changes with the overlaps
+     *
+     * @return list of overlapping entities
+     */
+    public List<Physics> getOverlappingEntities() {
+        return new AbstractList<Physics>() {
+            @Override
+            public Physics get(int i) {
+                if (i >= overlappingCount) throw new IndexOutOfBoundsException(i);
+                return overlappingEntities[i];
+            }
+
+            @Override
+            public int size() {
+                return overlappingCount;
+            }
+        };
+    }
+
+    /**
+     * get the collision layers the entity is on
+     *
+     * @return layer bits, 1 by default
+     */
+    public int getLayers() {
+        return world.getLayers(slot);
+    }
+
+    /**
+     * set the collision layers the entity is on
+     *
+     * @param layers layer bits
+     */
+    public Physics setLayers(int layers) {
+        world.setLayers(slot, layers);
+        return this;
+    }
+
+    /**
+     * get the layers the entity collides with
+     *
+     * @return mask bits, all layers by default
+     */
+    public int getMask() {
+        return world.getMask(slot);
+    }
+
+    /**
+     * set the layers the entity collides with. two entities only collide or overlap if each is on a layer in the
+     * other's mask
+     *
+     * @param mask mask bits
+     */
+    public Physics setMask(int mask) {
+        world.setMask(slot, mask);
+        return this;
+    }
+
+    /**
+     * check if the layers and masks of this entity and another let them collide or overlap
+     *
+     * @param physics other entity
+     * @return true if each entity is on a layer in the other's mask
+     */
+    public boolean interacts(Physics physics) {
+        return interacts(getLayers(), getMask(), physics.getLayers(), physics.getMask());
     }
 
     /**
-     * get the set of all entities overlapping this one
+     * check if two sets of layers and masks let their entities collide or overlap
      *
-     * @return set of overlapping entities
+     * @param layers  layers of the first entity
+     * @param mask    mask of the first entity
+     * @param layers2 layers of the second entity
+     * @param mask2   mask of the second entity
+     * @return true if each entity is on a layer in the other's mask
      */
-    public HashSet<Physics> getOverlappingEntities() {
-        return overlappingEntities;
+    public static boolean interacts(int layers, int mask, int layers2, int mask2) {
+        return (layers & mask2) != 0 && (layers2 & mask) != 0;
     }
 
     /**
@@ -686,7 +1742,7 @@ public abstract class Physics extends Box {
      * @return true if entity is kinematic
      */
     public boolean isKinematic() {
-        return kinematic;
+        return is(KINEMATIC);
     }
 
     /**
@@ -695,7 +1751,7 @@ public abstract class Physics extends Box {
      * @param kinematic true to allow entity motion
      */
     public Physics setKinematic(boolean kinematic) {
-        this.kinematic = kinematic;
+        flag(KINEMATIC, kinematic);
         return this;
     }
 
@@ -705,7 +1761,7 @@ public abstract class Physics extends Box {
      * @return true if an entity is pushable on any axis
      */
     public boolean isPushable() {
-        return pushable[0] || pushable[1] || pushable[2];
+        return is(PUSHABLE_X | PUSHABLE_Y | PUSHABLE_Z);
     }
 
     /**
@@ -714,7 +1770,7 @@ public abstract class Physics extends Box {
      * @return true if an entity is pushable on the x axis
      */
     public boolean isPushableX() {
-        return pushable[0];
+        return is(PUSHABLE_X);
     }
 
     /**
@@ -723,7 +1779,7 @@ public abstract class Physics extends Box {
      * @return true if an entity is pushable on the y axis
      */
     public boolean isPushableY() {
-        return pushable[1];
+        return is(PUSHABLE_Y);
     }
 
     /**
@@ -732,7 +1788,7 @@ public abstract class Physics extends Box {
      * @return true if an entity is pushable on the z axis
      */
     public boolean isPushableZ() {
-        return pushable[2];
+        return is(PUSHABLE_Z);
     }
 
     /**
@@ -743,9 +1799,9 @@ public abstract class Physics extends Box {
      * @param z true to allow pushing on the z axis
      */
     public Physics setPushable(boolean x, boolean y, boolean z) {
-        pushable[0] = x;
-        pushable[1] = y;
-        pushable[2] = z;
+        flag(PUSHABLE_X, x);
+        flag(PUSHABLE_Y, y);
+        flag(PUSHABLE_Z, z);
         return this;
     }
 
@@ -755,7 +1811,7 @@ public abstract class Physics extends Box {
      * @return mass of the entity
      */
     public float getMass() {
-        return mass;
+        return get(MASS);
     }
 
     /**
@@ -764,10 +1820,103 @@ public abstract class Physics extends Box {
      * @param mass new mass for entity
      */
     public Physics setMass(float mass) {
-        this.mass = mass;
+        set(MASS, mass);
+        return this;
+    }
+
+    /**
+     * check if the entity is sleeping
+     *
+     * @return true if the entity is sleeping
+     */
+    public boolean isSleeping() {
+        return is(SLEEPING);
+    }
+
+    /**
+     * put the entity to sleep or wake it up. setting the position, velocity, acceleration, or gravity also wakes it
+     *
+     * @param sleeping true to put the entity to sleep
+     */
+    public Physics setSleeping(boolean sleeping) {
+        if (sleeping) {
+            flag(SLEEPING, true);
+            set(VELOCITY_X, 0);
+            set(VELOCITY_Y, 0);
+            set(VELOCITY_Z, 0);
+        } else {
+            wake();
+        }
+        return this;
+    }
+
+    /**
+     * get the speed the entity has to stay under to fall asleep
+     *
+     * @return sleep threshold (meters / second)
+     */
+    public float getSleepThreshold() {
+        return sleepThreshold;
+    }
+
+    /**
+     * set the speed the entity has to stay under to fall asleep
+     *
+     * @param sleepThreshold sleep threshold (meters / second), 0 to never sleep
+     */
+    public Physics setSleepThreshold(float sleepThreshold) {
+        this.sleepThreshold = sleepThreshold;
         return this;
     }
 
+    /**
+     * get the number of ticks the entity has to rest for before it falls asleep
+     *
+     * @return sleep delay in ticks
+     */
+    public int getSleepDelay() {
+        return sleepDelay;
+    }
+
+    /**
+     * set the number of ticks the entity has to rest for before it falls asleep
+     *
+     * @param sleepDelay sleep delay in ticks
+     */
+    public Physics setSleepDelay(int sleepDelay) {
+        this.sleepDelay = sleepDelay;
+        return this;
+    }
+
+    /**
+     * add a listener for changes in the entities touching this entity
+     *
+     * @param listener contact listener
+     */
+    public Physics addContactListener(ContactListener listener) {
+        contactListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * remove a listener for changes in the entities touching this entity
+     *
+     * @param listener contact listener
+     */
+    public Physics removeContactListener(ContactListener listener) {
+        contactListeners.remove(listener);
+        return this;
+    }
+
+    /**
+     * get the listeners for changes in the entities touching this entity
+     *
+     * @return set of contact listeners
+     */
+    public HashSet<ContactListener> getContactListeners() {
+        return contactListeners;
+    }
+
     /**
      * set the entities the object is in a scene with, only callable by parent class
      *
@@ -784,16 +1933,16 @@ public abstract class Physics extends Box {
      * @param updatable true to allow updating
      */
     protected void setUpdatable(boolean updatable) {
-        this.updatable = updatable;
+        flag(UPDATABLE, updatable);
     }
 
     /**
-     * check if the entity can update, called by parent class for special function
+     * check if the entity can update, which is decided by the parent class
      *
      * @return true if entity can update
      */
-    protected boolean isUpdatable() {
-        return updatable;
+    public boolean isUpdatable() {
+        return is(UPDATABLE);
     }
 
     /**
@@ -808,21 +1957,36 @@ public abstract class Physics extends Box {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         Physics physics = (Physics) o;
-        return solid == physics.solid &&
-                colliding == physics.colliding &&
-                overlapping == physics.overlapping &&
-                kinematic == physics.kinematic &&
-                pushable == physics.pushable &&
-                Float.compare(physics.mass, mass) == 0 &&
-                updatable == physics.updatable &&
-                Objects.equals(gravity, physics.gravity) &&
-                Objects.equals(position, physics.position) &&
-                Objects.equals(velocity, physics.velocity) &&
-                Objects.equals(terminalVelocity, physics.terminalVelocity) &&
-                Objects.equals(acceleration, physics.acceleration) &&
-                Objects.equals(drag, physics.drag) &&
-                Objects.equals(roughness, physics.roughness) &&
-                Objects.equals(collidingEntities, physics.collidingEntities) &&
-                Objects.equals(overlappingEntities, physics.overlappingEntities);
+        for (int i = 0; i < COLUMNS; i++) {
+            if ((i >= LAST_VELOCITY_X && i <= LAST_VELOCITY_Z) || i >= PREVIOUS_POSITION_X) continue;
+            if (Float.compare(get(i), physics.get(i)) != 0) return false;
+        }
+        //compare every column except the tick buffer, the interpolation position, and the batch step
+        return (world.getFlags(slot) & ~LAST_SLEEPING) == (physics.world.getFlags(physics.slot) & ~LAST_SLEEPING) &&
+                getLayers() == physics.getLayers() &&
+                getMask() == physics.getMask() &&
+                Float.compare(physics.sleepThreshold, sleepThreshold) == 0 &&
+                sleepDelay == physics.sleepDelay &&
+                sameContacts(physics);
+    }
+
+    /**
+     * check if another entity has the same contacts as this one, comparing the entities by identity
+     *
+     * @param physics entity to compare with
+     * @return true if both have the same colliding entities per side and the same overlapping entities
+     */
+    private boolean sameContacts(Physics physics) {
+        if (collidingSides != physics.collidingSides || overlappingCount != physics.overlappingCount) return false;
+        for (int i = 0; i < 6; i++) {
+            if (collidingCounts[i] != physics.collidingCounts[i]) return false;
+            for (int j = 0; j < collidingCounts[i]; j++) {
+                if (!contains(physics.collidingEntities[i], collidingCounts[i], collidingEntities[i][j])) return false;
+            }
+        }
+        for (int i = 0; i < overlappingCount; i++) {
+            if (!contains(physics.overlappingEntities, overlappingCount, overlappingEntities[i])) return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,532 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * column storage for the physics state of many entities. every value is kept in its own primitive array indexed by
+ * entity slot, so a pass over one value of every entity reads memory in order instead of following references to
+ * vectors scattered around the heap. entities are handles onto a slot in a world, and positions and sizes are only
+ * written through them so their bounds always match those columns
+ *
+ * @author Jeremy Noesen
+ */
+public class PhysicsWorld {
+
+    /**
+     * position columns (meters)
+     */
+    public static final int POSITION_X = 0, POSITION_Y = 1, POSITION_Z = 2;
+
+    /**
+     * velocity columns (meters / second)
+     */
+    public static final int VELOCITY_X = 3, VELOCITY_Y = 4, VELOCITY_Z = 5;
+
+    /**
+     * acceleration columns (meters / second ^ 2)
+     */
+    public static final int ACCELERATION_X = 6, ACCELERATION_Y = 7, ACCELERATION_Z = 8;
+
+    /**
+     * gravity columns (meters / second ^ 2)
+     */
+    public static final int GRAVITY_X = 9, GRAVITY_Y = 10, GRAVITY_Z = 11;
+
+    /**
+     * terminal velocity columns (meters / second)
+     */
+    public static final int TERMINAL_VELOCITY_X = 12, TERMINAL_VELOCITY_Y = 13, TERMINAL_VELOCITY_Z = 14;
+
+    /**
+     * drag coefficient columns
+     */
+    public static final int DRAG_X = 15, DRAG_Y = 16, DRAG_Z = 17;
+
+    /**
+     * roughness columns, used for friction
+     */
+    public static final int ROUGHNESS_X = 18, ROUGHNESS_Y = 19, ROUGHNESS_Z = 20;
+
+    /**
+     * velocity at the start of the tick, read by other entities while ticking motion in parallel
+     */
+    public static final int LAST_VELOCITY_X = 21, LAST_VELOCITY_Y = 22, LAST_VELOCITY_Z = 23;
+
+    /**
+     * dimension columns (meters)
+     */
+    public static final int WIDTH = 24, HEIGHT = 25, DEPTH = 26;
+
+    /**
+     * mass column
+     */
+    public static final int MASS = 27;
+
+    /**
+     * position at the end of the previous fixed step, used to interpolate rendering between steps (meters)
+     */
+    public static final int PREVIOUS_POSITION_X = 28, PREVIOUS_POSITION_Y = 29, PREVIOUS_POSITION_Z = 30;
+
+    /**
+     * time step of the slot for the next batched motion pass, 0 for slots the pass leaves alone (seconds)
+     */
+    public static final int STEP = 31;
+
+    /**
+     * number of columns
+     */
+    public static final int COLUMNS = 32;
+
+    /**
+     * flag set if the entity can have motion
+     */
+    public static final int KINEMATIC = 1;
+
+    /**
+     * flag set if the entity can be collided with
+     */
+    public static final int SOLID = 1 << 1;
+
+    /**
+     * flag set if the entity can update
+     */
+    public static final int UPDATABLE = 1 << 2;
+
+    /**
+     * flag set if the entity is sleeping
+     */
+    public static final int SLEEPING = 1 << 3;
+
+    /**
+     * flag set if the entity was sleeping at the start of the tick
+     */
+    public static final int LAST_SLEEPING = 1 << 4;
+
+    /**
+     * flags set if the entity can be pushed on the x, y, and z axis
+     */
+    public static final int PUSHABLE_X = 1 << 5, PUSHABLE_Y = 1 << 6, PUSHABLE_Z = 1 << 7;
+
+    /**
+     * whether the jit turns loops over columns into simd instructions. the batched passes use branch free loops the
+     * jit can vectorize when this is true, and loops that skip slots they do not need otherwise
+     */
+    public static final boolean VECTORIZED = superWord();
+
+    /**
+     * value columns, indexed by column and then by slot
+     */
+    private final float[][] columns;
+
+    /**
+     * flags of each slot
+     */
+    private int[] flags;
+
+    /**
+     * collision layers of each slot
+     */
+    private int[] layers;
+
+    /**
+     * layers each slot collides with
+     */
+    private int[] masks;
+
+    /**
+     * scratch column for overlap passes, holding the largest gap between bounds on any axis for each slot
+     */
+    private float[] gaps;
+
+    /**
+     * number of slots that have been handed out, including released ones
+     */
+    private int size;
+
+    /**
+     * released slots waiting to be reused
+     */
+    private int[] free;
+
+    /**
+     * number of released slots
+     */
+    private int freeCount;
+
+    /**
+     * create a new empty world
+     */
+    public PhysicsWorld() {
+        this(16);
+    }
+
+    /**
+     * create a new empty world with room for a number of entities before it has to grow
+     *
+     * @param capacity starting number of slots
+     */
+    public PhysicsWorld(int capacity) {
+        capacity = Math.max(1, capacity);
+        columns = new float[COLUMNS][capacity];
+        flags = new int[capacity];
+        layers = new int[capacity];
+        masks = new int[capacity];
+        free = new int[0];
+        gaps = new float[0];
+    }
+
+    /**
+     * get a slot for a new entity, reusing released slots first. all values of the slot start at 0
+     *
+     * @return slot index
+     */
+    public int allocate() {
+        if (freeCount > 0) return free[--freeCount];
+        if (size == flags.length) {
+            int capacity = size * 2;
+            for (int i = 0; i < COLUMNS; i++) columns[i] = Arrays.copyOf(columns[i], capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            layers = Arrays.copyOf(layers, capacity);
+            masks = Arrays.copyOf(masks, capacity);
+        }
+        //grow every column together
+        return size++;
+    }
+
+    /**
+     * give back a slot that is no longer used, clearing its values
+     *
+     * @param slot slot index
+     */
+    void release(int slot) {
+        for (int i = 0; i < COLUMNS; i++) columns[i][slot] = 0;
+        flags[slot] = 0;
+        layers[slot] = 0;
+        masks[slot] = 0;
+        if (freeCount == free.length) free = Arrays.copyOf(free, Math.max(4, freeCount * 2));
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * take a slot that already holds the state of an entity so an entity can be attached to it. heap worlds always
+     * start empty, so they never have such slots
+     *
+     * @param slot slot index
+     * @throws IllegalArgumentException always
+     */
+    public void claim(int slot) {
+        throw new IllegalArgumentException("slot " + slot + " is not waiting for an entity");
+    }
+
+    /**
+     * copy every value of a slot into a slot of another world
+     *
+     * @param slot   slot to copy from
+     * @param world  world to copy to
+     * @param target slot to copy to
+     */
+    void copy(int slot, PhysicsWorld world, int target) {
+        for (int i = 0; i < COLUMNS; i++) world.set(i, target, get(i, slot));
+        world.setFlags(target, getFlags(slot));
+        world.setLayers(target, getLayers(slot));
+        world.setMask(target, getMask(slot));
+        //go through the accessors, the other world may keep its values somewhere else
+    }
+
+    /**
+     * get a value of a slot
+     *
+     * @param column column index
+     * @param slot   slot index
+     * @return value
+     */
+    public float get(int column, int slot) {
+        return columns[column][slot];
+    }
+
+    /**
+     * set a value of a slot
+     *
+     * @param column column index
+     * @param slot   slot index
+     * @param value  new value
+     */
+    void set(int column, int slot, float value) {
+        columns[column][slot] = value;
+    }
+
+    /**
+     * check if a flag is set for a slot
+     *
+     * @param slot slot index
+     * @param flag flag to check
+     * @return true if the flag is set
+     */
+    public boolean is(int slot, int flag) {
+        return (flags[slot] & flag) != 0;
+    }
+
+    /**
+     * set or clear a flag for a slot
+     *
+     * @param slot  slot index
+     * @param flag  flag to change
+     * @param value true to set the flag
+     */
+    public void setFlag(int slot, int flag, boolean value) {
+        if (value) flags[slot] |= flag;
+        else flags[slot] &= ~flag;
+    }
+
+    /**
+     * get all flags of a slot
+     *
+     * @param slot slot index
+     * @return flags
+     */
+    public int getFlags(int slot) {
+        return flags[slot];
+    }
+
+    /**
+     * set all flags of a slot
+     *
+     * @param slot  slot index
+     * @param flags flags
+     */
+    public void setFlags(int slot, int flags) {
+        this.flags[slot] = flags;
+    }
+
+    /**
+     * set a column to 0 for every slot
+     *
+     * @param column column index
+     */
+    void clear(int column) {
+        Arrays.fill(columns[column], 0, size, 0);
+    }
+
+    /**
+     * get the collision layers of a slot
+     *
+     * @param slot slot index
+     * @return layer bits
+     */
+    public int getLayers(int slot) {
+        return layers[slot];
+    }
+
+    /**
+     * set the collision layers of a slot
+     *
+     * @param slot   slot index
+     * @param layers layer bits
+     */
+    public void setLayers(int slot, int layers) {
+        this.layers[slot] = layers;
+    }
+
+    /**
+     * get the layers a slot collides with
+     *
+     * @param slot slot index
+     * @return mask bits
+     */
+    public int getMask(int slot) {
+        return masks[slot];
+    }
+
+    /**
+     * set the layers a slot collides with
+     *
+     * @param slot slot index
+     * @param mask mask bits
+     */
+    public void setMask(int slot, int mask) {
+        masks[slot] = mask;
+    }
+
+    /**
+     * store the velocity and sleep state of every slot as the state at the start of the tick, read by other entities
+     * while ticking motion in parallel
+     */
+    public void bufferState() {
+        for (int i = 0; i < 3; i++) System.arraycopy(columns[VELOCITY_X + i], 0, columns[LAST_VELOCITY_X + i], 0, size);
+        for (int i = 0; i < size; i++) {
+            flags[i] = (flags[i] & SLEEPING) != 0 ? flags[i] | LAST_SLEEPING : flags[i] & ~LAST_SLEEPING;
+        }
+    }
+
+    /**
+     * store the position of every slot as the position before the next step, so rendering can interpolate between them
+     */
+    public void storePositions() {
+        for (int i = 0; i < 3; i++) {
+            System.arraycopy(columns[POSITION_X + i], 0, columns[PREVIOUS_POSITION_X + i], 0, size);
+        }
+    }
+
+    /**
+     * move every slot by its step, applying acceleration and gravity up to terminal velocity, then drag, then velocity.
+     * this is the motion tick of an entity with nothing touching it, run for every slot at once. slots with a step of 0
+     * do not change
+     */
+    void integrate() {
+        integrate(VECTORIZED);
+    }
+
+    /**
+     * move every slot by its step, picking the pass to use
+     *
+     * @param vectorized true to run the branch free pass over every slot, false to only visit slots with a step
+     */
+    void integrate(boolean vectorized) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (vectorized) integrateLanes(axis);
+            else integrateSlots(axis);
+        }
+    }
+
+    /**
+     * move every slot on an axis without branching, so the jit can run several slots per instruction. the clamp and
+     * drag are written with min and max, which give the same result as the branches in the entity motion tick. the
+     * work is split into two loops, since the jit only vectorizes loops small enough for it to unroll
+     *
+     * @param axis axis index
+     */
+    private void integrateLanes(int axis) {
+        float[] position = columns[POSITION_X + axis], velocity = columns[VELOCITY_X + axis],
+                acceleration = columns[ACCELERATION_X + axis], gravity = columns[GRAVITY_X + axis],
+                terminal = columns[TERMINAL_VELOCITY_X + axis], drag = columns[DRAG_X + axis],
+                first = columns[axis == 1 ? WIDTH : HEIGHT], second = columns[axis == 2 ? WIDTH : DEPTH],
+                step = columns[STEP];
+        for (int i = 0; i < size; i++) {
+            float v = velocity[i], t = terminal[i];
+            velocity[i] = Math.min(Math.max(v + ((acceleration[i] + gravity[i]) * step[i]), Math.min(v, -t)),
+                    Math.max(v, t));
+        }
+        //accelerate, stopping at terminal velocity but never slowing an entity already past it
+        for (int i = 0; i < size; i++) {
+            float v = velocity[i], dt = step[i];
+            float d = drag[i] * first[i] * second[i] * dt * Math.abs(v);
+            v = Math.min(v + d, 0) + Math.max(v - d, 0);
+            //slow down by drag without passing 0, only one of the two sides is not 0
+            velocity[i] = v;
+            position[i] += v * dt;
+        }
+    }
+
+    /**
+     * move the slots with a step on an axis one at a time, for when the jit does not vectorize loops
+     *
+     * @param axis axis index
+     */
+    private void integrateSlots(int axis) {
+        float[] position = columns[POSITION_X + axis], velocity = columns[VELOCITY_X + axis],
+                acceleration = columns[ACCELERATION_X + axis], gravity = columns[GRAVITY_X + axis],
+                terminal = columns[TERMINAL_VELOCITY_X + axis], drag = columns[DRAG_X + axis],
+                first = columns[axis == 1 ? WIDTH : HEIGHT], second = columns[axis == 2 ? WIDTH : DEPTH],
+                step = columns[STEP];
+        for (int i = 0; i < size; i++) {
+            float dt = step[i];
+            if (dt == 0) continue;
+            float v = velocity[i], t = terminal[i];
+            v = Math.min(Math.max(v + ((acceleration[i] + gravity[i]) * dt), Math.min(v, -t)), Math.max(v, t));
+            float d = drag[i] * first[i] * second[i] * dt * Math.abs(v);
+            v = Math.min(v + d, 0) + Math.max(v - d, 0);
+            velocity[i] = v;
+            position[i] += v * dt;
+        }
+    }
+
+    /**
+     * find every slot whose bounds overlap or touch the bounds of a slot, including the slot itself and released
+     * slots, which are empty boxes at the origin
+     *
+     * @param slot    slot to check against
+     * @param results array to put the overlapping slots in, at least as long as the number of slots
+     * @return number of overlapping slots
+     */
+    public int overlapping(int slot, int[] results) {
+        return overlapping(slot, results, VECTORIZED);
+    }
+
+    /**
+     * find every slot whose bounds overlap or touch the bounds of a slot, picking the pass to use
+     *
+     * @param slot       slot to check against
+     * @param results    array to put the overlapping slots in, at least as long as the number of slots
+     * @param vectorized true to find the gaps of every slot without branching first, false to check slots one at a time
+     * @return number of overlapping slots
+     */
+    public int overlapping(int slot, int[] results, boolean vectorized) {
+        float[] px = columns[POSITION_X], py = columns[POSITION_Y], pz = columns[POSITION_Z],
+                w = columns[WIDTH], h = columns[HEIGHT], d = columns[DEPTH];
+        float minX = px[slot] - (w[slot] / 2.0f), maxX = px[slot] + (w[slot] / 2.0f),
+                minY = py[slot] - (h[slot] / 2.0f), maxY = py[slot] + (h[slot] / 2.0f),
+                minZ = pz[slot] - (d[slot] / 2.0f), maxZ = pz[slot] + (d[slot] / 2.0f);
+        //bounds are worked out the same way boxes do, so the result matches box overlap checks
+        int count = 0;
+        if (vectorized) {
+            if (gaps.length < size) gaps = new float[flags.length];
+            float[] gap = gaps;
+            for (int i = 0; i < size; i++) {
+                gap[i] = Math.max(minX - (px[i] + (w[i] / 2.0f)), (px[i] - (w[i] / 2.0f)) - maxX);
+            }
+            for (int i = 0; i < size; i++) {
+                gap[i] = Math.max(gap[i], Math.max(minY - (py[i] + (h[i] / 2.0f)), (py[i] - (h[i] / 2.0f)) - maxY));
+            }
+            for (int i = 0; i < size; i++) {
+                gap[i] = Math.max(gap[i], Math.max(minZ - (pz[i] + (d[i] / 2.0f)), (pz[i] - (d[i] / 2.0f)) - maxZ));
+            }
+            //a gap above 0 on any axis means the bounds are apart, one loop per axis so each can be vectorized
+            for (int i = 0; i < size; i++) {
+                if (gap[i] <= 0) results[count++] = i;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (minX <= px[i] + (w[i] / 2.0f) && maxX >= px[i] - (w[i] / 2.0f) &&
+                        minY <= py[i] + (h[i] / 2.0f) && maxY >= py[i] - (h[i] / 2.0f) &&
+                        minZ <= pz[i] + (d[i] / 2.0f) && maxZ >= pz[i] - (d[i] / 2.0f)) results[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * check if the jit vectorizes loops, which is off when running without c2 or with -XX:-UseSuperWord
+     *
+     * @return true if loops are vectorized
+     */
+    private static boolean superWord() {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(bean.getVMOption("UseSuperWord").getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return false;
+        }
+        //the option only exists with c2, and the management modules may be left out of a runtime image
+    }
+
+    /**
+     * get the number of slots handed out so far, including released ones. every used slot is below this
+     *
+     * @return number of slots
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * get the number of slots in use
+     *
+     * @return number of entities in the world
+     */
+    public int getCount() {
+        return size - freeCount;
+    }
+}
@@ -0,0 +1,174 @@
+package xyz.jeremynoesen.pseudo3d.scene.entity;
+
+import xyz.jeremynoesen.pseudo3d.scene.util.Box.Side;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * per tick cache of the mass stacked behind each entity on each side, found once for the whole scene before motion
+ * is ticked. entities in a stack share the sums of the entities they rest on instead of each walking the whole stack
+ *
+ * @author Jeremy Noesen
+ */
+public class Stacks {
+
+    /**
+     * source of stamps for caches and walks, shared so stamps never repeat between scenes
+     */
+    private static final AtomicInteger STAMPS = new AtomicInteger();
+
+    /**
+     * all sides, cached to avoid copying the values every check
+     */
+    private static final Side[] SIDES = Side.values();
+
+    /**
+     * stamp of the current cache, 0 if there is no current cache
+     */
+    private int stamp;
+
+    /**
+     * entities waiting for their sum while walking down a stack
+     */
+    private Physics[] path;
+
+    /**
+     * queue for summing masses of entities resting on more than one entity
+     */
+    private Physics[] queue;
+
+    /**
+     * create a new empty stacked mass cache
+     */
+    public Stacks() {
+        path = new Physics[16];
+        queue = new Physics[16];
+    }
+
+    /**
+     * find the stacked masses of every entity that can need them this tick, on both sides of every axis it collides on
+     *
+     * @param entities kinematic entities about to tick their motion
+     */
+    public void update(List<? extends Physics> entities) {
+        stamp = STAMPS.incrementAndGet();
+        for (Physics physics : entities) {
+            if (!physics.isUpdatable() || physics.isSleeping() || !physics.isColliding()) continue;
+            for (int i = 0; i < SIDES.length; i += 2) {
+                if (physics.collidesOn(SIDES[i]) || physics.collidesOn(SIDES[i + 1])) {
+                    mass(physics, SIDES[i]);
+                    mass(physics, SIDES[i + 1]);
+                }
+            }
+            //sides come in pairs per axis, and the side needed depends on the velocity after acceleration
+        }
+    }
+
+    /**
+     * mark the cache as out of date, called once the motion tick is done since collisions change the stacks
+     */
+    public void clear() {
+        stamp = 0;
+    }
+
+    /**
+     * check if an entity has a current cached stacked mass on a side
+     *
+     * @param physics entity to check
+     * @param side    side index
+     * @return true if the cached mass can be used
+     */
+    boolean isCached(Physics physics, int side) {
+        return stamp != 0 && physics.stacks == this && physics.stackedStamps[side] == stamp;
+    }
+
+    /**
+     * find the mass of an entity and everything behind it on a side. walks down single entity stacks, adding up the
+     * masses on the way back up so every entity on the way gets its sum cached
+     *
+     * @param physics entity to find the stacked mass of
+     * @param side    side to follow
+     * @return total mass
+     */
+    private float mass(Physics physics, Side side) {
+        int index = side.ordinal();
+        int walk = STAMPS.incrementAndGet();
+        int count = 0;
+        Physics node = physics;
+        float total;
+        while (true) {
+            if (isCached(node, index)) {
+                total = node.stackedMasses[index];
+                break;
+            }
+            int behind = node.getCollidingCount(side);
+            if (behind != 1) {
+                total = behind == 0 ? node.getMass() : sum(node, side);
+                cache(node, index, total);
+                break;
+            }
+            //stop at the end of the stack, or where it splits and sums could count an entity twice
+            if (node.visitedStamp == walk) {
+                total = sum(physics, side);
+                cache(physics, index, total);
+                return total;
+            }
+            //the walk came back around, so only the first entity can be summed safely
+            node.visitedStamp = walk;
+            if (count == path.length) path = Arrays.copyOf(path, count * 2);
+            path[count++] = node;
+            node = node.getCollidingEntity(side, 0);
+        }
+
+        for (int i = count - 1; i >= 0; i--) {
+            total += path[i].getMass();
+            cache(path[i], index, total);
+            path[i] = null;
+        }
+        //each entity in the stack weighs itself plus the entity it rests on
+        return total;
+    }
+
+    /**
+     * sum the masses of an entity and everything behind it on a side, visiting every entity once
+     *
+     * @param physics entity to start from
+     * @param side    side to follow
+     * @return total mass
+     */
+    private float sum(Physics physics, Side side) {
+        int visit = STAMPS.incrementAndGet();
+        int head = 0, tail = 0;
+        float total = 0;
+        queue[tail++] = physics;
+        physics.visitedStamp = visit;
+        while (head < tail) {
+            Physics node = queue[head++];
+            total += node.getMass();
+            for (int i = 0, n = node.getCollidingCount(side); i < n; i++) {
+                Physics next = node.getCollidingEntity(side, i);
+                if (next.visitedStamp == visit) continue;
+                next.visitedStamp = visit;
+                if (tail == queue.length) queue = Arrays.copyOf(queue, tail * 2);
+                queue[tail++] = next;
+            }
+        }
+        Arrays.fill(queue, 0, tail, null);
+        return total;
+    }
+
+    /**
+     * store a stacked mass in an entity
+     *
+     * @param physics entity to store in
+     * @param side    side index
+     * @param mass    stacked mass
+     */
+    private void cache(Physics physics, int side, float mass) {
+        physics.stacks = this;
+        physics.stackedMasses[side] = mass;
+        physics.stackedStamps[side] = stamp;
+    }
+}
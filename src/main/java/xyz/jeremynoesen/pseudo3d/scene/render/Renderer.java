@@ -6,6 +6,7 @@ import xyz.jeremynoesen.pseudo3d.scene.Scene;
 import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
 import xyz.jeremynoesen.pseudo3d.scene.entity.Sprite;
 import xyz.jeremynoesen.pseudo3d.scene.util.Box;
+import xyz.jeremynoesen.pseudo3d.scene.util.MutableVector;
 import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
 
 import java.util.Comparator;
@@ -22,7 +23,7 @@ public class Renderer {
      * comparator used to sort scene entities from lowest to highest z position for draw order
      */
     private static final Comparator<Entity> zComparator = (o1, o2) -> {
-        float diff = o1.getPosition().getZ() - o2.getPosition().getZ();
+        float diff = o1.getZ() - o2.getZ();
         return Math.round(diff / (diff == 0 ? 1 : Math.abs(diff)));
     };
     
@@ -51,6 +52,36 @@ public class Renderer {
      */
     private float deltaTime;
     
+    /**
+     * fraction of a physics step to interpolate entity positions by
+     */
+    private float alpha;
+    
+    /**
+     * reusable position of the entity being drawn
+     */
+    private final MutableVector objPos;
+    
+    /**
+     * reusable boxes for the canvas bounds and the bounds of the sprite being drawn
+     */
+    private final Box screenBox, spriteBox;
+    
+    /**
+     * reusable transforms for the original canvas transform and the transform of the sprite being drawn
+     */
+    private final Affine original, transform;
+    
+    /**
+     * position of the entity being drawn on the canvas
+     */
+    private float x, y;
+    
+    /**
+     * size of the entity being drawn on the canvas
+     */
+    private int widthScaled, heightScaled;
+    
     /**
      * create a new renderer for the specified scene
      *
@@ -58,6 +89,11 @@ public class Renderer {
      */
     public Renderer(Scene scene) {
         this.scene = scene;
+        objPos = new MutableVector();
+        screenBox = new Box();
+        spriteBox = new Box();
+        original = new Affine();
+        transform = new Affine();
     }
     
     /**
@@ -67,21 +103,38 @@ public class Renderer {
      * @param deltaTime       time elapsed in last frame, used for sprite updating
      */
     public void render(GraphicsContext graphicsContext, float deltaTime) {
-        this.graphicsContext = graphicsContext;
-        this.deltaTime = deltaTime;
-        init();
+        render(graphicsContext, deltaTime, 1);
+    }
+    
+    /**
+     * render the next full frame, drawing entities between their previous and current physics step
+     *
+     * @param graphicsContext graphics context to draw to
+     * @param deltaTime       time elapsed in last frame, used for sprite updating
+     * @param alpha           fraction of a step from 0 at the previous step to 1 at the current step
+     */
+    public void render(GraphicsContext graphicsContext, float deltaTime, float alpha) {
+        init(graphicsContext, deltaTime, alpha);
+        sort();
         drawBackground();
         for (Entity entity : scene.getEntities()) {
             drawEntity(entity);
         }
+        //draw every entity, reusing the same vectors, boxes, and transforms so drawing does not allocate
     }
     
     /**
-     * initialize a few variables and sort the scene entities before starting with the render
+     * initialize a few variables before starting with the render. this and the other steps of a render are package
+     * private so each step can be timed on its own
+     *
+     * @param graphicsContext graphics context to draw to
+     * @param deltaTime       time elapsed in last frame, used for sprite updating
+     * @param alpha           fraction of a step from 0 at the previous step to 1 at the current step
      */
-    private void init() {
-        scene.getEntities().sort(zComparator);
-        //sort entities by z position so entities can be drawn in front of others
+    void init(GraphicsContext graphicsContext, float deltaTime, float alpha) {
+        this.graphicsContext = graphicsContext;
+        this.deltaTime = deltaTime;
+        this.alpha = alpha;
         
         graphicsContext.setImageSmoothing(false);
         //set rendering settings for speed
@@ -90,6 +143,18 @@ public class Renderer {
         renderPos = new Vector((float) graphicsContext.getCanvas().getWidth() / 2.0f + camera.getOffset().getX(),
                 (float) graphicsContext.getCanvas().getHeight() / 2.0f + camera.getOffset().getY());
         //update required variables
+        
+        short gWidth = (short) graphicsContext.getCanvas().getWidth();
+        short gHeight = (short) graphicsContext.getCanvas().getHeight();
+        screenBox.setDimensions(gWidth, gHeight, 0).setPosition(gWidth / 2.0f, gHeight / 2.0f, 0);
+        //box to represent panel bounds
+    }
+    
+    /**
+     * sort entities by z position so entities can be drawn in front of others
+     */
+    void sort() {
+        scene.getEntities().sort(zComparator);
     }
     
     /**
@@ -128,15 +193,43 @@ public class Renderer {
      * @param entity entity to draw to the canvas
      */
     private void drawEntity(Entity entity) {
-        Vector objPos = entity.getPosition().multiply(scene.getGridScale());
-        Vector camPos = camera.getPosition().multiply(scene.getGridScale());
-        float camDist = camPos.getZ() - objPos.getZ();
+        if (!project(entity)) {
+            entity.setOnScreen(false);
+            return;
+        }
+        //don't render entities that can't be seen from the camera
+        
+        if (cull(entity)) {
+            draw(entity);
+            entity.setOnScreen(true);
+            //draw image to panel and update on screen status
+        } else {
+            entity.setOnScreen(false);
+            if (entity.canUpdateOffScreen()) entity.getSprite().update(deltaTime * entity.getSpeed());
+            //update sprite if allowed
+        }
+    }
+    
+    /**
+     * find the position and size of an entity on the canvas
+     *
+     * @param entity entity to project
+     * @return false if the entity has no sprite, is hidden, is further than view distance, or is too small to draw
+     */
+    boolean project(Entity entity) {
+        Vector gridScale = scene.getGridScale();
+        if (alpha < 1) entity.getInterpolatedPosition(alpha, objPos);
+        else entity.getPosition(objPos);
+        objPos.multiply(gridScale);
+        Vector camPos = camera.getPosition();
+        float camX = camPos.getX() * gridScale.getX();
+        float camY = camPos.getY() * gridScale.getY();
+        float camDist = camPos.getZ() * gridScale.getZ() - objPos.getZ();
         //entity and camera data
         
         if (!entity.isEnabled() || !entity.isVisible() || entity.getSprite() == null ||
-                camDist >= camera.getViewDistance() * scene.getGridScale().getZ()) {
-            entity.setOnScreen(false);
-            return;
+                camDist >= camera.getViewDistance() * gridScale.getZ()) {
+            return false;
         }
         //don't render entities without a sprite or further than view distance
         
@@ -145,37 +238,36 @@ public class Renderer {
                 Math.sin((Math.PI / 2.0) - Math.toRadians(camera.getFieldOfView()) / 2.0f))))));
         //scale entities based on fov angle and distance from camera using law of sines and camera sensor size
         
-        if (scale <= 0) {
-            entity.setOnScreen(false);
-            return;
-        }
+        if (scale <= 0) return false;
         //don't render if entities are too small
         
         Sprite sprite = entity.getSprite();
         //get entity sprite
         
-        int widthScaled = (int) Math.ceil(sprite.getWidth() * scene.getGridScale().getX() * scale);
-        int heightScaled = (int) Math.ceil(sprite.getHeight() * scene.getGridScale().getY() * scale);
+        widthScaled = (int) Math.ceil(sprite.getWidth() * gridScale.getX() * scale);
+        heightScaled = (int) Math.ceil(sprite.getHeight() * gridScale.getY() * scale);
         //scale image dimensions
         
-        short gWidth = (short) graphicsContext.getCanvas().getWidth();
         short gHeight = (short) graphicsContext.getCanvas().getHeight();
-        //references to canvas dimensions
+        //reference to canvas height
         
-        float x = ((objPos.getX() - camPos.getX()) * scale) + renderPos.getX();
-        float y = gHeight - (((objPos.getY() - camPos.getY()) * scale) + (gHeight - renderPos.getY()));
+        x = ((objPos.getX() - camX) * scale) + renderPos.getX();
+        y = gHeight - (((objPos.getY() - camY) * scale) + (gHeight - renderPos.getY()));
         //translate entity coordinates
+        return true;
+    }
+    
+    /**
+     * set up the transform of a projected entity and check if any of it is on the canvas
+     *
+     * @param entity entity to check, projected last
+     * @return true if any part of the entity is visible on the canvas
+     */
+    boolean cull(Entity entity) {
+        Sprite sprite = entity.getSprite();
         
-        Box screenBox = new Box(gWidth, gHeight,
-                new Vector(gWidth / 2.0f, gHeight / 2.0f));
-        Box spriteBox;
-        //boxes to represent image and panel bounds
-        
-        Affine original = graphicsContext.getTransform();
-        //original affine transform
-        
-        Affine transform = new Affine();
-        //create new transform, resetting old one
+        transform.setToIdentity();
+        //reset the transform
         
         if (camera.getRotation() != 0 || sprite.getRotation() != 0) {
             //check if there is any rotation
@@ -208,31 +300,30 @@ public class Renderer {
             float xRotated = (relX * camRotCos) - (relY * camRotSin) + renderPos.getX();
             //get position of image based on camera rotation
             
-            spriteBox = new Box(widthRotated, heightRotated,
-                    new Vector(xRotated, yRotated));
+            spriteBox.setDimensions(widthRotated, heightRotated, 0).setPosition(xRotated, yRotated, 0);
             //set box data
         } else {
-            spriteBox = new Box(widthScaled, heightScaled, new Vector(x, y));
+            spriteBox.setDimensions(widthScaled, heightScaled, 0).setPosition(x, y, 0);
             //set box data
         }
         
-        if (spriteBox.overlaps(screenBox)) {
-            //check if any part of image is visible in panel
-            
-            graphicsContext.setTransform(transform);
-            graphicsContext.drawImage(sprite.getImage(), x - (widthScaled / 2.0),
-                    y - (heightScaled / 2.0), widthScaled, heightScaled);
-            graphicsContext.setTransform(original);
-            sprite.update(deltaTime * entity.getSpeed());
-            //draw image to panel
-            
-            entity.setOnScreen(true);
-            //update on screen status
-        } else {
-            entity.setOnScreen(false);
-            if (entity.canUpdateOffScreen()) sprite.update(deltaTime * entity.getSpeed());
-            //update sprite if allowed
-        }
+        return spriteBox.overlaps(screenBox);
+        //check if any part of image is visible in panel
+    }
+    
+    /**
+     * draw a projected entity that passed culling and update its sprite
+     *
+     * @param entity entity to draw, culled last
+     */
+    void draw(Entity entity) {
+        Sprite sprite = entity.getSprite();
+        graphicsContext.getTransform(original);
+        graphicsContext.setTransform(transform);
+        graphicsContext.drawImage(sprite.getImage(), x - (widthScaled / 2.0),
+                y - (heightScaled / 2.0), widthScaled, heightScaled);
+        graphicsContext.setTransform(original);
+        sprite.update(deltaTime * entity.getSpeed());
     }
     
     /**
@@ -30,17 +30,27 @@ public class Box {
     /**
      * minimum point of box
      */
-    private Vector min;
+    private float minX, minY, minZ;
     
     /**
      * maximum point of box
      */
-    private Vector max;
+    private float maxX, maxY, maxZ;
     
     /**
      * position of the center of the box
      */
-    private Vector position;
+    private float x, y, z;
+    
+    /**
+     * immutable copies of the minimum, maximum, and position, made when first asked for after they change
+     */
+    private Vector minView, maxView, positionView;
+    
+    /**
+     * version of the box bounds, increased every time they change
+     */
+    private int version;
     
     /**
      * creates a new box with default 0 values
@@ -49,9 +59,6 @@ public class Box {
         width = 0;
         height = 0;
         depth = 0;
-        position = new Vector();
-        min = new Vector();
-        max = new Vector();
     }
     
     /**
@@ -66,11 +73,8 @@ public class Box {
         this.width = Math.abs(width);
         this.height = Math.abs(height);
         this.depth = Math.abs(depth);
-        this.position = position;
-        min = new Vector(position.getX() - (width / 2.0f),
-                position.getY() - (height / 2.0f), position.getZ() - (depth / 2.0f));
-        max = new Vector(position.getX() + (width / 2.0f),
-                position.getY() + (height / 2.0f), position.getZ() + (depth / 2.0f));
+        bounds(position.getX(), position.getY(), position.getZ(), width, height, depth);
+        positionView = position;
     }
     
     /**
@@ -84,11 +88,8 @@ public class Box {
         this.width = Math.abs(width);
         this.height = Math.abs(height);
         this.depth = 0;
-        this.position = position;
-        min = new Vector(position.getX() - (width / 2.0f),
-                position.getY() - (height / 2.0f), position.getZ() - (depth / 2.0f));
-        max = new Vector(position.getX() + (width / 2.0f),
-                position.getY() + (height / 2.0f), position.getZ() + (depth / 2.0f));
+        bounds(position.getX(), position.getY(), position.getZ(), width, height, 0);
+        positionView = position;
     }
     
     /**
@@ -100,9 +101,19 @@ public class Box {
         this.width = box.width;
         this.height = box.height;
         this.depth = box.depth;
-        this.position = box.position;
-        this.min = box.min;
-        this.max = box.max;
+        this.x = box.x;
+        this.y = box.y;
+        this.z = box.z;
+        this.minX = box.minX;
+        this.minY = box.minY;
+        this.minZ = box.minZ;
+        this.maxX = box.maxX;
+        this.maxY = box.maxY;
+        this.maxZ = box.maxZ;
+        this.positionView = box.positionView;
+        this.minView = box.minView;
+        this.maxView = box.maxView;
+        this.version = box.version;
     }
     
     /**
@@ -135,8 +146,9 @@ public class Box {
      */
     public Box setWidth(float width) {
         this.width = Math.abs(width);
-        max = max.setX(position.getX() + (width / 2.0f));
-        min = min.setX(position.getX() - (width / 2.0f));
+        maxX = x + (width / 2.0f);
+        minX = x - (width / 2.0f);
+        changed();
         return this;
     }
     
@@ -156,8 +168,9 @@ public class Box {
      */
     public Box setHeight(float height) {
         this.height = Math.abs(height);
-        max = max.setY(position.getY() + (height / 2.0f));
-        min = min.setY(position.getY() - (height / 2.0f));
+        maxY = y + (height / 2.0f);
+        minY = y - (height / 2.0f);
+        changed();
         return this;
     }
     
@@ -177,8 +190,9 @@ public class Box {
      */
     public Box setDepth(float depth) {
         this.depth = depth;
-        max = max.setZ(position.getZ() + (depth / 2.0f));
-        min = min.setZ(position.getZ() - (depth / 2.0f));
+        maxZ = z + (depth / 2.0f);
+        minZ = z - (depth / 2.0f);
+        changed();
         return this;
     }
     
@@ -188,7 +202,45 @@ public class Box {
      * @return copy of position
      */
     public Vector getPosition() {
-        return position;
+        if (positionView == null) positionView = new Vector(x, y, z);
+        return positionView;
+    }
+    
+    /**
+     * get the position of the box without making a new vector
+     *
+     * @param result vector to set to the position
+     * @return the result vector
+     */
+    public MutableVector getPosition(MutableVector result) {
+        return result.set(x, y, z);
+    }
+    
+    /**
+     * get the x position of the center of the box
+     *
+     * @return x position
+     */
+    public float getX() {
+        return x;
+    }
+    
+    /**
+     * get the y position of the center of the box
+     *
+     * @return y position
+     */
+    public float getY() {
+        return y;
+    }
+    
+    /**
+     * get the z position of the center of the box
+     *
+     * @return z position
+     */
+    public float getZ() {
+        return z;
     }
     
     /**
@@ -197,11 +249,21 @@ public class Box {
      * @param position new position
      */
     public Box setPosition(Vector position) {
-        this.position = position;
-        max = new Vector(position.getX() + (width / 2.0f),
-                position.getY() + (height / 2.0f), position.getZ() + (depth / 2.0f));
-        min = new Vector(position.getX() - (width / 2.0f),
-                position.getY() - (height / 2.0f), position.getZ() - (depth / 2.0f));
+        setPosition(position.getX(), position.getY(), position.getZ());
+        positionView = position;
+        return this;
+    }
+    
+    /**
+     * set the position of the box and recalculate its actual min and max coords, without making any new vectors
+     *
+     * @param x x position
+     * @param y y position
+     * @param z z position
+     */
+    public Box setPosition(float x, float y, float z) {
+        bounds(x, y, z, width, height, depth);
+        changed();
         return this;
     }
     
@@ -211,7 +273,18 @@ public class Box {
      * @return minimum location
      */
     public Vector getMinimum() {
-        return min;
+        if (minView == null) minView = new Vector(minX, minY, minZ);
+        return minView;
+    }
+    
+    /**
+     * get the minimum location of the box without making a new vector
+     *
+     * @param result vector to set to the minimum location
+     * @return the result vector
+     */
+    public MutableVector getMinimum(MutableVector result) {
+        return result.set(minX, minY, minZ);
     }
     
     /**
@@ -220,7 +293,113 @@ public class Box {
      * @return maximum location
      */
     public Vector getMaximum() {
-        return max;
+        if (maxView == null) maxView = new Vector(maxX, maxY, maxZ);
+        return maxView;
+    }
+    
+    /**
+     * get the maximum location of the box without making a new vector
+     *
+     * @param result vector to set to the maximum location
+     * @return the result vector
+     */
+    public MutableVector getMaximum(MutableVector result) {
+        return result.set(maxX, maxY, maxZ);
+    }
+    
+    /**
+     * get the minimum x of the box
+     *
+     * @return minimum x
+     */
+    public float getMinX() {
+        return minX;
+    }
+    
+    /**
+     * get the minimum y of the box
+     *
+     * @return minimum y
+     */
+    public float getMinY() {
+        return minY;
+    }
+    
+    /**
+     * get the minimum z of the box
+     *
+     * @return minimum z
+     */
+    public float getMinZ() {
+        return minZ;
+    }
+    
+    /**
+     * get the maximum x of the box
+     *
+     * @return maximum x
+     */
+    public float getMaxX() {
+        return maxX;
+    }
+    
+    /**
+     * get the maximum y of the box
+     *
+     * @return maximum y
+     */
+    public float getMaxY() {
+        return maxY;
+    }
+    
+    /**
+     * get the maximum z of the box
+     *
+     * @return maximum z
+     */
+    public float getMaxZ() {
+        return maxZ;
+    }
+    
+    /**
+     * set the center and bounds of the box from a position and dimensions
+     *
+     * @param x      x position
+     * @param y      y position
+     * @param z      z position
+     * @param width  width of box
+     * @param height height of box
+     * @param depth  depth of box
+     */
+    private void bounds(float x, float y, float z, float width, float height, float depth) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        maxX = x + (width / 2.0f);
+        maxY = y + (height / 2.0f);
+        maxZ = z + (depth / 2.0f);
+        minX = x - (width / 2.0f);
+        minY = y - (height / 2.0f);
+        minZ = z - (depth / 2.0f);
+    }
+    
+    /**
+     * drop the cached views of the box and bump its version after the bounds change
+     */
+    private void changed() {
+        positionView = null;
+        minView = null;
+        maxView = null;
+        version++;
+    }
+    
+    /**
+     * get the version of the box bounds, which increases every time the position or dimensions change
+     *
+     * @return version of the bounds
+     */
+    public int getVersion() {
+        return version;
     }
     
     /**
@@ -230,9 +409,9 @@ public class Box {
      * @return true if the box overlaps this box
      */
     public boolean overlaps(Box box) {
-        return min.getX() <= box.getMaximum().getX() && max.getX() >= box.getMinimum().getX() &&
-                min.getY() <= box.getMaximum().getY() && max.getY() >= box.getMinimum().getY() &&
-                min.getZ() <= box.getMaximum().getZ() && max.getZ() >= box.getMinimum().getZ();
+        return minX <= box.maxX && maxX >= box.minX &&
+                minY <= box.maxY && maxY >= box.minY &&
+                minZ <= box.maxZ && maxZ >= box.minZ;
     }
     
     /**
@@ -242,9 +421,9 @@ public class Box {
      * @return true if the box is inside this box
      */
     public boolean contains(Box box) {
-        return min.getX() <= box.getMinimum().getX() && max.getX() >= box.getMaximum().getX() &&
-                min.getY() <= box.getMinimum().getY() && max.getY() >= box.getMaximum().getY() &&
-                min.getZ() <= box.getMinimum().getZ() && max.getZ() >= box.getMaximum().getZ();
+        return minX <= box.minX && maxX >= box.maxX &&
+                minY <= box.minY && maxY >= box.maxY &&
+                minZ <= box.minZ && maxZ >= box.maxZ;
     }
     
     /**
@@ -254,9 +433,85 @@ public class Box {
      * @return true of the box contains this position
      */
     public boolean contains(Vector position) {
-        return min.getX() <= position.getX() && max.getX() >= position.getX() &&
-                min.getY() <= position.getY() && max.getY() >= position.getY() &&
-                min.getZ() <= position.getZ() && max.getZ() >= position.getZ();
+        float x = position.getX(), y = position.getY(), z = position.getZ();
+        return minX <= x && maxX >= x &&
+                minY <= y && maxY >= y &&
+                minZ <= z && maxZ >= z;
+    }
+    
+    /**
+     * find how far along a ray it first touches the box
+     *
+     * @param origin      start of the ray
+     * @param direction   direction of the ray, distances are in lengths of this vector
+     * @param maxDistance furthest distance along the ray to check
+     * @return distance to the box, 0 if the ray starts inside it, or -1 if the ray misses it
+     */
+    public float raycast(Vector origin, Vector direction, float maxDistance) {
+        return raycast(origin.getX(), origin.getY(), origin.getZ(),
+                direction.getX(), direction.getY(), direction.getZ(), maxDistance);
+    }
+    
+    /**
+     * find how far along a ray given by its components it first touches the box, without making any new vectors
+     *
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check, in lengths of the direction
+     * @return distance to the box, 0 if the ray starts inside it, or -1 if the ray misses it
+     */
+    public float raycast(float x, float y, float z, float dx, float dy, float dz, float maxDistance) {
+        return raycast(minX, minY, minZ, maxX, maxY, maxZ, x, y, z, dx, dy, dz, maxDistance);
+    }
+    
+    /**
+     * find how far along a ray it first touches a box given by its bounds, by clipping the ray to the box one axis at a
+     * time
+     *
+     * @param minX        minimum x of the box
+     * @param minY        minimum y of the box
+     * @param minZ        minimum z of the box
+     * @param maxX        maximum x of the box
+     * @param maxY        maximum y of the box
+     * @param maxZ        maximum z of the box
+     * @param x           x of the start of the ray
+     * @param y           y of the start of the ray
+     * @param z           z of the start of the ray
+     * @param dx          x direction of the ray
+     * @param dy          y direction of the ray
+     * @param dz          z direction of the ray
+     * @param maxDistance furthest distance along the ray to check
+     * @return distance to the box, 0 if the ray starts inside it, or -1 if the ray misses it
+     */
+    public static float raycast(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                                float x, float y, float z, float dx, float dy, float dz, float maxDistance) {
+        float near = 0, far = maxDistance;
+        if (dx == 0) {
+            if (x < minX || x > maxX) return -1;
+        } else {
+            float t1 = (minX - x) / dx, t2 = (maxX - x) / dx;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y < minY || y > maxY) return -1;
+        } else {
+            float t1 = (minY - y) / dy, t2 = (maxY - y) / dy;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (dz == 0) {
+            if (z < minZ || z > maxZ) return -1;
+        } else {
+            float t1 = (minZ - z) / dz, t2 = (maxZ - z) / dz;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        return near <= far ? near : -1;
     }
     
     /**
@@ -284,7 +539,7 @@ public class Box {
      */
     @Override
     public String toString() {
-        return "[" + width + ", " + height + ", " + depth + ", " + position.toString() + "]";
+        return "[" + width + ", " + height + ", " + depth + ", " + getPosition().toString() + "]";
     }
     
     /**
@@ -301,6 +556,8 @@ public class Box {
         return Float.compare(that.width, width) == 0 &&
                 Float.compare(that.height, height) == 0 &&
                 Float.compare(that.depth, depth) == 0 &&
-                that.position.equals(position);
+                Float.compare(that.x, x) == 0 &&
+                Float.compare(that.y, y) == 0 &&
+                Float.compare(that.z, z) == 0;
     }
 }
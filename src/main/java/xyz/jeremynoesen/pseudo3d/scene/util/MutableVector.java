@@ -0,0 +1,292 @@
+package xyz.jeremynoesen.pseudo3d.scene.util;
+
+/**
+ * mutable vector changed in place by its operators, used by the engine internals to do vector math without making a
+ * new vector every operation
+ *
+ * @author Jeremy Noesen
+ */
+public class MutableVector {
+    
+    /**
+     * x component of vector
+     */
+    private float x;
+    
+    /**
+     * y component of vector
+     */
+    private float y;
+    
+    /**
+     * z component of vector
+     */
+    private float z;
+    
+    /**
+     * create a new zero vector
+     */
+    public MutableVector() {
+        x = 0;
+        y = 0;
+        z = 0;
+    }
+    
+    /**
+     * create a new vector with components x, y, and z
+     *
+     * @param x x component of vector
+     * @param y y component of vector
+     * @param z z component of vector
+     */
+    public MutableVector(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+    
+    /**
+     * create a new vector with the components of an immutable vector
+     *
+     * @param vector vector to copy
+     */
+    public MutableVector(Vector vector) {
+        x = vector.getX();
+        y = vector.getY();
+        z = vector.getZ();
+    }
+    
+    /**
+     * copy constructor for mutable vector
+     *
+     * @param vector vector to copy
+     */
+    public MutableVector(MutableVector vector) {
+        x = vector.x;
+        y = vector.y;
+        z = vector.z;
+    }
+    
+    /**
+     * get the x component of the vector
+     *
+     * @return x component
+     */
+    public float getX() {
+        return x;
+    }
+    
+    /**
+     * set the x component of the vector
+     *
+     * @param x x component
+     */
+    public MutableVector setX(float x) {
+        this.x = x;
+        return this;
+    }
+    
+    /**
+     * get the y component of the vector
+     *
+     * @return y component
+     */
+    public float getY() {
+        return y;
+    }
+    
+    /**
+     * set the y component of the vector
+     *
+     * @param y y component
+     */
+    public MutableVector setY(float y) {
+        this.y = y;
+        return this;
+    }
+    
+    /**
+     * get the z component of the vector
+     *
+     * @return z component
+     */
+    public float getZ() {
+        return z;
+    }
+    
+    /**
+     * set the z component of the vector
+     *
+     * @param z z component
+     */
+    public MutableVector setZ(float z) {
+        this.z = z;
+        return this;
+    }
+    
+    /**
+     * set all components of the vector
+     *
+     * @param x x component
+     * @param y y component
+     * @param z z component
+     */
+    public MutableVector set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+    
+    /**
+     * set the components of the vector to the components of an immutable vector
+     *
+     * @param vector vector to copy
+     */
+    public MutableVector set(Vector vector) {
+        return set(vector.getX(), vector.getY(), vector.getZ());
+    }
+    
+    /**
+     * set the components of the vector to the components of another vector
+     *
+     * @param vector vector to copy
+     */
+    public MutableVector set(MutableVector vector) {
+        return set(vector.x, vector.y, vector.z);
+    }
+    
+    /**
+     * add components to this vector
+     *
+     * @param x x component to add
+     * @param y y component to add
+     * @param z z component to add
+     */
+    public MutableVector add(float x, float y, float z) {
+        this.x += x;
+        this.y += y;
+        this.z += z;
+        return this;
+    }
+    
+    /**
+     * add a vector to this vector
+     *
+     * @param vector vector to add
+     */
+    public MutableVector add(Vector vector) {
+        return add(vector.getX(), vector.getY(), vector.getZ());
+    }
+    
+    /**
+     * subtract a vector from this vector
+     *
+     * @param vector vector to subtract
+     */
+    public MutableVector subtract(Vector vector) {
+        return add(-vector.getX(), -vector.getY(), -vector.getZ());
+    }
+    
+    /**
+     * multiply the components of this vector by another vector's components
+     *
+     * @param vector vector to multiply by
+     */
+    public MutableVector multiply(Vector vector) {
+        x *= vector.getX();
+        y *= vector.getY();
+        z *= vector.getZ();
+        return this;
+    }
+    
+    /**
+     * scale this vector by a scalar, which multiplies each component by the scalar
+     *
+     * @param scale what to scale vector by
+     */
+    public MutableVector multiply(float scale) {
+        x *= scale;
+        y *= scale;
+        z *= scale;
+        return this;
+    }
+    
+    /**
+     * scale this vector by a scalar, which divides each component by the scalar
+     *
+     * @param scale what to scale vector by
+     */
+    public MutableVector divide(float scale) {
+        x /= scale;
+        y /= scale;
+        z /= scale;
+        return this;
+    }
+    
+    /**
+     * move this vector from one vector towards another, the same as adding the difference scaled by a fraction
+     *
+     * @param from  vector at a fraction of 0
+     * @param to    vector at a fraction of 1
+     * @param alpha fraction of the way from one vector to the other
+     */
+    public MutableVector interpolate(Vector from, Vector to, float alpha) {
+        return set(from.getX() + (to.getX() - from.getX()) * alpha, from.getY() + (to.getY() - from.getY()) * alpha,
+                from.getZ() + (to.getZ() - from.getZ()) * alpha);
+    }
+    
+    /**
+     * get the magnitude (length) of the vector
+     *
+     * @return magnitude of vector
+     */
+    public float getMagnitude() {
+        return (float) Math.sqrt((x * x) + (y * y) + (z * z));
+    }
+    
+    /**
+     * make an immutable copy of the vector
+     *
+     * @return immutable vector with the same components
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+    
+    /**
+     * makes the vector into a string
+     *
+     * @return vector form of vector
+     */
+    @Override
+    public String toString() {
+        return "<" + x + "," + y + "," + z + ">";
+    }
+    
+    /**
+     * check if two mutable vectors are equal
+     *
+     * @param vector vector to compare to this vector
+     * @return true if vectors are equal
+     */
+    @Override
+    public boolean equals(Object vector) {
+        if (this == vector) return true;
+        if (vector == null || getClass() != vector.getClass()) return false;
+        MutableVector that = (MutableVector) vector;
+        return Float.compare(that.x, x) == 0 &&
+                Float.compare(that.y, y) == 0 &&
+                Float.compare(that.z, z) == 0;
+    }
+    
+    /**
+     * get a hash code of the vector matching equals, changing whenever the vector changes
+     *
+     * @return hash code of the vector
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Float.hashCode(x) + Float.hashCode(y)) + Float.hashCode(z);
+    }
+}
@@ -0,0 +1,119 @@
+import xyz.jeremynoesen.pseudo3d.scene.Scene;
+import xyz.jeremynoesen.pseudo3d.scene.collision.AABBTree;
+import xyz.jeremynoesen.pseudo3d.scene.collision.Broadphase;
+import xyz.jeremynoesen.pseudo3d.scene.collision.SpatialHash;
+import xyz.jeremynoesen.pseudo3d.scene.collision.SweepAndPrune;
+import xyz.jeremynoesen.pseudo3d.scene.entity.Entity;
+import xyz.jeremynoesen.pseudo3d.scene.util.Vector;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * check that scenes using a broadphase move exactly like the same scenes checking all pairs, dropping boxes of mixed
+ * sizes onto a floor so collisions push them into pairs they were not touching at the start of a tick. every tick mode
+ * is checked both with the default batching and continuous collisions and with neither
+ *
+ * @author Jeremy Noesen
+ */
+public class BroadphaseCheck {
+    
+    /**
+     * time step of a tick at 60 ticks per second
+     */
+    private static final float DELTA_TIME = 1 / 60f;
+    
+    /**
+     * number of ticks compared for each seed
+     */
+    private static final int TICKS = 300;
+    
+    /**
+     * number of falling boxes in each scene
+     */
+    private static final int COUNT = 60;
+    
+    /**
+     * broadphases to check, copied for every scene
+     */
+    private static final Broadphase[] BROADPHASES = {new SpatialHash(), new AABBTree(), new SweepAndPrune()};
+    
+    /**
+     * run the check for every broadphase, tick mode, and a few seeds, exiting with an error on the first tick where
+     * the scenes differ
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+        for (Broadphase broadphase : BROADPHASES) {
+            for (Scene.TickMode tickMode : Scene.TickMode.values()) {
+                check(broadphase, tickMode, true);
+                check(broadphase, tickMode, false);
+            }
+        }
+        System.out.println("broadphases match all pairs");
+    }
+    
+    /**
+     * compare a broadphase against all pairs for a few seeds, exiting with an error on the first tick where the scenes
+     * differ
+     *
+     * @param broadphase broadphase to check
+     * @param tickMode   tick mode of both scenes
+     * @param batched    whether both scenes batch motion and sweep fast entities
+     */
+    private static void check(Broadphase broadphase, Scene.TickMode tickMode, boolean batched) {
+        for (int seed = 0; seed < 10; seed++) {
+            Scene allPairs = create(null, tickMode, batched, seed);
+            Scene checked = create(broadphase.copy(), tickMode, batched, seed);
+            
+            for (int tick = 1; tick <= TICKS; tick++) {
+                allPairs.tick(DELTA_TIME);
+                checked.tick(DELTA_TIME);
+                
+                Iterator<Entity> other = checked.getEntities().iterator();
+                for (Entity entity : allPairs.getEntities()) {
+                    Entity compared = other.next();
+                    if (entity.getX() != compared.getX() || entity.getY() != compared.getY()
+                            || entity.getZ() != compared.getZ()) {
+                        System.err.println(broadphase.getClass().getSimpleName() + " " + tickMode +
+                                (batched ? "" : " unbatched") + " seed " + seed + " differs from all pairs at tick " +
+                                tick);
+                        System.exit(1);
+                    }
+                }
+            }
+            //entities are added in the same order, so they are compared in pairs
+        }
+    }
+    
+    /**
+     * create a scene of boxes falling onto a floor
+     *
+     * @param broadphase broadphase of the scene, null to check all pairs
+     * @param tickMode   tick mode of the scene
+     * @param batched    whether the scene batches motion and sweeps fast entities
+     * @param seed       seed of the sizes, positions, and velocities of the boxes
+     * @return scene of falling boxes
+     */
+    private static Scene create(Broadphase broadphase, Scene.TickMode tickMode, boolean batched, int seed) {
+        Scene scene = new Scene().setBroadphase(broadphase).setTickMode(tickMode).setBatched(batched)
+                .setContinuous(batched)
+                .addEntity((Entity) new Entity().setKinematic(false).setDimensions(12, 1, 12)
+                        .setPosition(new Vector(0, -3, 0)));
+        Random random = new Random(seed);
+        for (int i = 0; i < COUNT; i++) {
+            Entity entity = new Entity();
+            entity.setDimensions(0.3f + random.nextFloat() * 2, 0.2f + random.nextFloat(),
+                    0.3f + random.nextFloat() * 2);
+            entity.setVelocity(new Vector(random.nextFloat() * 6 - 3, -random.nextFloat() * 10,
+                    random.nextFloat() * 6 - 3));
+            entity.setPosition(new Vector(random.nextFloat() * 4 - 2, i * 3 + random.nextFloat(),
+                    random.nextFloat() * 4 - 2));
+            scene.addEntity(entity);
+        }
+        //boxes start spread out above each other, with random sizes and velocities
+        
+        return scene;
+    }
+}